@@ -0,0 +1,146 @@
+package com.ss.jme.plugin;
+
+import com.intellij.util.xmlb.annotations.Property;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * The JVM settings to launch jMB from a jar.
+ *
+ * @author JavaSaBr
+ */
+@Getter
+@EqualsAndHashCode
+public class JmbLaunchProfile {
+
+    /**
+     * The garbage collector of jMB.
+     */
+    public enum GarbageCollector {
+        DEFAULT(null),
+        G1("-XX:+UseG1GC"),
+        PARALLEL("-XX:+UseParallelGC"),
+        SERIAL("-XX:+UseSerialGC");
+
+        /**
+         * The JVM option to enable the collector or null.
+         */
+        @Nullable
+        private final String option;
+
+        GarbageCollector(@Nullable String option) {
+            this.option = option;
+        }
+
+        public @Nullable String getOption() {
+            return option;
+        }
+    }
+
+    /**
+     * The path to the JDK to launch jMB or empty to use java from PATH.
+     */
+    @NotNull
+    @Property
+    private String javaHome;
+
+    /**
+     * The max heap size of jMB in MB or 0 to use the default size.
+     */
+    @Property
+    private int maxHeap;
+
+    /**
+     * The garbage collector of jMB.
+     */
+    @NotNull
+    @Property
+    private GarbageCollector garbageCollector;
+
+    /**
+     * The additional JVM options of jMB.
+     */
+    @NotNull
+    @Property
+    private String jvmOptions;
+
+    /**
+     * The flag to record an AppCDS archive at the first launch and to reuse it by next launches.
+     */
+    @Property
+    private boolean classDataSharing;
+
+    public JmbLaunchProfile() {
+        this.javaHome = "";
+        this.garbageCollector = GarbageCollector.DEFAULT;
+        this.jvmOptions = "";
+    }
+
+    /**
+     * Copies settings from the profile.
+     *
+     * @param other the other profile or null to reset settings.
+     */
+    void copyOf(@Nullable JmbLaunchProfile other) {
+        if (other == null) {
+            this.javaHome = "";
+            this.maxHeap = 0;
+            this.garbageCollector = GarbageCollector.DEFAULT;
+            this.jvmOptions = "";
+            this.classDataSharing = false;
+        } else {
+            this.javaHome = other.javaHome;
+            this.maxHeap = other.maxHeap;
+            this.garbageCollector = other.garbageCollector;
+            this.jvmOptions = other.jvmOptions;
+            this.classDataSharing = other.classDataSharing;
+        }
+    }
+
+    /**
+     * Sets the path to the JDK to launch jMB.
+     *
+     * @param javaHome the path to the JDK or null to use java from PATH.
+     */
+    public void setJavaHome(@Nullable String javaHome) {
+        this.javaHome = javaHome == null ? "" : javaHome;
+    }
+
+    /**
+     * Sets the max heap size of jMB.
+     *
+     * @param maxHeap the size in MB or 0 to use the default size.
+     */
+    public void setMaxHeap(int maxHeap) {
+        this.maxHeap = Math.max(maxHeap, 0);
+    }
+
+    /**
+     * Sets the garbage collector of jMB.
+     *
+     * @param garbageCollector the garbage collector or null to use the default collector.
+     */
+    public void setGarbageCollector(@Nullable GarbageCollector garbageCollector) {
+        this.garbageCollector = garbageCollector == null ? GarbageCollector.DEFAULT : garbageCollector;
+    }
+
+    /**
+     * Sets the additional JVM options of jMB.
+     *
+     * @param jvmOptions the options or null.
+     */
+    public void setJvmOptions(@Nullable String jvmOptions) {
+        this.jvmOptions = jvmOptions == null ? "" : jvmOptions;
+    }
+
+    /**
+     * Sets the flag to record and reuse an AppCDS archive.
+     *
+     * @param classDataSharing true if jMB should use an AppCDS archive.
+     */
+    public void setClassDataSharing(boolean classDataSharing) {
+        this.classDataSharing = classDataSharing;
+    }
+}
@@ -0,0 +1,200 @@
+package com.ss.jme.plugin;
+
+import com.intellij.compiler.server.BuildManagerListener;
+import com.intellij.openapi.compiler.CompilationStatusListener;
+import com.intellij.openapi.compiler.CompileContext;
+import com.intellij.openapi.compiler.CompilerTopics;
+import com.intellij.openapi.module.Module;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.openapi.vfs.VirtualFileManager;
+import com.intellij.openapi.vfs.newvfs.BulkFileListener;
+import com.intellij.openapi.vfs.newvfs.events.VFileDeleteEvent;
+import com.intellij.openapi.vfs.newvfs.events.VFileEvent;
+import com.intellij.util.messages.MessageBusConnection;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The listener to collect compiled classes of a module which were generated or deleted by a compile session,
+ * deleted classes are collected only while a compile session is active.
+ *
+ * @author JavaSaBr
+ */
+public class JmeCompilationStatusListener implements CompilationStatusListener, BuildManagerListener, BulkFileListener {
+
+    @NotNull
+    private static final String CLASS_EXTENSION = ".class";
+
+    @NotNull
+    private final Module module;
+
+    /**
+     * The paths of generated classes relative to the output folder.
+     */
+    @NotNull
+    private final Set<String> generated;
+
+    /**
+     * The paths of deleted classes relative to the output folder.
+     */
+    @NotNull
+    private final Set<String> deleted;
+
+    /**
+     * The system independent path to the classes output which was resolved for the current compile session,
+     * an empty string if the module doesn't have it or null if it isn't resolved yet.
+     */
+    @Nullable
+    private volatile String sessionOutput;
+
+    /**
+     * True if a compile session of the project is active.
+     */
+    private volatile boolean compiling;
+
+    public JmeCompilationStatusListener(@NotNull Module module, @NotNull MessageBusConnection connection) {
+        this.module = module;
+        this.generated = ConcurrentHashMap.newKeySet();
+        this.deleted = ConcurrentHashMap.newKeySet();
+        connection.subscribe(CompilerTopics.COMPILATION_STATUS, this);
+        connection.subscribe(BuildManagerListener.TOPIC, this);
+        connection.subscribe(VirtualFileManager.VFS_CHANGES, this);
+    }
+
+    @Override
+    public void fileGenerated(@NotNull String outputRoot, @NotNull String relativePath) {
+
+        String output = getSessionOutput();
+
+        if (!output.isEmpty() && relativePath.endsWith(CLASS_EXTENSION) &&
+                FileUtil.pathsEqual(output, FileUtil.toSystemIndependentName(outputRoot))) {
+            String path = FileUtil.toSystemIndependentName(relativePath);
+            deleted.remove(path);
+            generated.add(path);
+        }
+    }
+
+    @Override
+    public void buildStarted(@NotNull Project project, @NotNull UUID sessionId, boolean isAutomake) {
+        // auto-make reloads all classes, so it doesn't need collected classes
+        if (!isAutomake && project == module.getProject()) {
+            compiling = true;
+        }
+    }
+
+    @Override
+    public void after(@NotNull List<? extends VFileEvent> events) {
+
+        // classes deleted outside of a compile session, e.g. by cleaning the output, aren't reported
+        if (!compiling) {
+            return;
+        }
+
+        String output = null;
+
+        for (VFileEvent event : events) {
+
+            if (!(event instanceof VFileDeleteEvent)) {
+                continue;
+            }
+
+            if (output == null) {
+                output = getSessionOutput();
+            }
+
+            if (output.isEmpty()) {
+                return;
+            }
+
+            String path = event.getPath();
+
+            if (path.endsWith(CLASS_EXTENSION) && FileUtil.isAncestor(output, path, true)) {
+                String relativePath = FileUtil.getRelativePath(output, path, '/');
+                if (relativePath != null) {
+                    generated.remove(relativePath);
+                    deleted.add(relativePath);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void compilationFinished(boolean aborted, int errors, int warnings, @NotNull CompileContext context) {
+
+        compiling = false;
+        sessionOutput = null;
+
+        if (generated.isEmpty() && deleted.isEmpty()) {
+            return;
+        }
+
+        Collection<String> changed = drain(generated);
+        Collection<String> removed = drain(deleted);
+
+        module.getComponent(JmeModuleComponent.class)
+                .onClassesCompiled(changed, removed);
+    }
+
+    /**
+     * Takes all paths from the set.
+     *
+     * @param paths the set of paths.
+     * @return the taken paths.
+     */
+    private @NotNull Collection<String> drain(@NotNull Set<String> paths) {
+
+        List<String> result = new ArrayList<>(paths.size());
+
+        for (String path : paths) {
+            if (paths.remove(path)) {
+                result.add(path);
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Gets the path to the classes output which is resolved once per compile session.
+     *
+     * @return the system independent path or an empty string if the module doesn't have it.
+     */
+    private @NotNull String getSessionOutput() {
+
+        String output = sessionOutput;
+
+        if (output == null) {
+            output = StringUtil.notNullize(getClassesOutput());
+            sessionOutput = output;
+        }
+
+        return output;
+    }
+
+    /**
+     * Gets the system independent path to the classes output of the module.
+     *
+     * @return the path or null.
+     */
+    private @Nullable String getClassesOutput() {
+
+        if (module.isDisposed()) {
+            return null;
+        }
+
+        Path output = module.getComponent(JmeModuleComponent.class)
+                .getClassesOutput();
+
+        return output == null ? null : FileUtil.toSystemIndependentName(output.toString());
+    }
+}
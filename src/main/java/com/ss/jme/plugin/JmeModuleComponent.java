@@ -1,15 +1,20 @@
 package com.ss.jme.plugin;
 
+import com.intellij.ProjectTopics;
 import com.intellij.compiler.server.BuildManagerListener;
+import com.intellij.openapi.application.ReadAction;
 import com.intellij.openapi.module.Module;
 import com.intellij.openapi.module.ModuleComponent;
 import com.intellij.openapi.project.Project;
 import com.intellij.openapi.roots.*;
+import com.intellij.openapi.vfs.VfsUtilCore;
 import com.intellij.openapi.vfs.VirtualFile;
-import com.ss.jme.plugin.jmb.JmbInstance;
+import com.intellij.util.messages.MessageBusConnection;
+import com.ss.jme.plugin.jmb.JmbAcknowledgement;
+import com.ss.jme.plugin.jmb.JmbClasspathSnapshot;
+import com.ss.jme.plugin.jmb.JmbService;
+import com.ss.jme.plugin.jmb.JmbSession;
 import com.ss.jme.plugin.jmb.command.client.ClientCommand;
-import com.ss.jme.plugin.jmb.command.client.LoadLocalClassesClientCommand;
-import com.ss.jme.plugin.jmb.command.client.LoadLocalLibrariesClientCommand;
 import com.ss.rlib.common.util.array.Array;
 import com.ss.rlib.common.util.array.ArrayCollectors;
 import org.jetbrains.annotations.NotNull;
@@ -18,8 +23,13 @@ import org.jetbrains.annotations.Nullable;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static org.jetbrains.jps.model.java.JavaResourceRootType.RESOURCE;
 
@@ -28,11 +38,14 @@ import static org.jetbrains.jps.model.java.JavaResourceRootType.RESOURCE;
  *
  * @author JavaSaBr
  */
-public class JmeModuleComponent implements ModuleComponent, BuildManagerListener {
+public class JmeModuleComponent implements ModuleComponent, BuildManagerListener, ModuleRootListener {
 
     @NotNull
     public static final String FOLDER_ASSETS = "assets";
 
+    @NotNull
+    private static final String LIBRARY_JME_CORE = "jme3-core";
+
     /**
      * The module root manager.
      */
@@ -46,10 +59,10 @@ public class JmeModuleComponent implements ModuleComponent, BuildManagerListener
     private final Module module;
 
     /**
-     * The instance of jMB.
+     * The session of this module in the shared instance of jMB.
      */
     @NotNull
-    private final JmbInstance jmbInstance;
+    private final JmbSession jmbSession;
 
     /**
      * The notification listener.
@@ -57,29 +70,86 @@ public class JmeModuleComponent implements ModuleComponent, BuildManagerListener
     @NotNull
     private final JmeExternalSystemTaskNotificationListener notificationListener;
 
+    /**
+     * The cached snapshot of libraries of this module or null if roots were changed since the last snapshot.
+     */
+    @NotNull
+    private final AtomicReference<JmbClasspathSnapshot> classpath;
+
+    /**
+     * The cached asset roots of this module or null if roots were changed since the last collecting.
+     */
+    @NotNull
+    private final AtomicReference<AssetRoots> assetRoots;
+
     private JmeModuleComponent(@NotNull Module module) {
         this.module = module;
+        this.classpath = new AtomicReference<>();
+        this.assetRoots = new AtomicReference<>();
         this.rootManager = ModuleRootManager.getInstance(module);
-        this.jmbInstance = new JmbInstance(module);
+        this.jmbSession = JmbService.getInstance().attach(module);
         this.notificationListener = new JmeExternalSystemTaskNotificationListener(module);
     }
 
     @Override
     public void initComponent() {
-        module.getMessageBus().connect()
-                .subscribe(BuildManagerListener.TOPIC, this);
+        MessageBusConnection connection = module.getMessageBus().connect();
+        connection.subscribe(BuildManagerListener.TOPIC, this);
+        connection.subscribe(ProjectTopics.PROJECT_ROOTS, this);
+        new JmeCompilationStatusListener(module, connection);
     }
 
     @Override
     public void buildFinished(@NotNull Project project, @NotNull UUID sessionId, boolean isAutomake) {
-        jmbInstance.sendCommandIfRunning(new LoadLocalClassesClientCommand(getCompileOutput()));
+        // changed classes of usual builds are collected by the compilation status listener,
+        // but auto-make doesn't report them, so we need to reload all classes
+        if (isAutomake) {
+            jmbSession.onClassesChanged();
+        }
+    }
+
+    @Override
+    public void rootsChanged(@NotNull ModuleRootEvent event) {
+        classpath.set(null);
+        assetRoots.set(null);
+    }
+
+    /**
+     * Notifies about generated and deleted classes of this module by a compile session.
+     *
+     * @param changed the paths of generated classes relative to the classes output.
+     * @param deleted the paths of deleted classes relative to the classes output.
+     */
+    public void onClassesCompiled(@NotNull Collection<String> changed, @NotNull Collection<String> deleted) {
+        jmbSession.onClassesChanged(changed, deleted);
     }
 
     /**
      * Notifies about the module's project was resolved.
      */
     public void onProjectResolved() {
-        jmbInstance.sendCommandIfRunning(new LoadLocalLibrariesClientCommand(getLibraries()));
+
+        jmbSession.onLibrariesChanged();
+
+        boolean prewarmJmb = JmePluginComponent.getInstance()
+                .getState()
+                .isPrewarmJmb();
+
+        if (prewarmJmb && isJmeModule()) {
+            jmbSession.prewarm();
+        }
+    }
+
+    /**
+     * Checks that this module depends on jME.
+     *
+     * @return true if this module has jME core library.
+     */
+    public boolean isJmeModule() {
+        return getLibraries().stream()
+                .map(Path::getFileName)
+                .filter(Objects::nonNull)
+                .anyMatch(fileName -> fileName.toString().startsWith(LIBRARY_JME_CORE));
     }
 
     /**
@@ -88,6 +158,37 @@ public class JmeModuleComponent implements ModuleComponent, BuildManagerListener
      * @return the list of libraries.
      */
     public @NotNull Array<Path> getLibraries() {
+        return getClasspath().getLibraries();
+    }
+
+    /**
+     * Gets the snapshot of libraries of this module, the snapshot is collected once and reused
+     * until roots of the project are changed.
+     *
+     * @return the snapshot of libraries.
+     */
+    public @NotNull JmbClasspathSnapshot getClasspath() {
+
+        JmbClasspathSnapshot snapshot = classpath.get();
+
+        if (snapshot != null) {
+            return snapshot;
+        }
+
+        // the snapshot is published inside the read action, so invalidation by a write action
+        // can't be lost between collecting and publishing
+        return ReadAction.compute(() -> {
+            JmbClasspathSnapshot collected = JmbClasspathSnapshot.of(collectLibraries());
+            return classpath.compareAndSet(null, collected) ? collected : classpath.get();
+        });
+    }
+
+    /**
+     * Collects all compile libraries of this module.
+     *
+     * @return the list of libraries.
+     */
+    private @NotNull Array<Path> collectLibraries() {
         return Arrays.stream(rootManager.getOrderEntries())
                 .filter(LibraryOrderEntry.class::isInstance)
                 .map(LibraryOrderEntry.class::cast)
@@ -122,10 +223,7 @@ public class JmeModuleComponent implements ModuleComponent, BuildManagerListener
      * @return the asset folder of this module.
      */
     public @Nullable Path getAssetFolder() {
-        return findAssetsFolder()
-                .map(VirtualFile::getPath)
-                .map(Paths::get)
-                .orElse(null);
+        return getAssetRoots().assetFolderPath;
     }
 
     /**
@@ -143,51 +241,109 @@ public class JmeModuleComponent implements ModuleComponent, BuildManagerListener
     }
 
     /**
-     * Gets an asset folder of this module.
+     * Gets the path to the output of compiled production classes.
      *
-     * @return the asset folder of this module.
+     * @return the path to the classes output.
      */
-    public @Nullable Path getAssetFolder(@NotNull VirtualFile file) {
-        String path = file.getPath();
-        return rootManager.getSourceRoots(RESOURCE).stream()
-                .filter(rootFile -> path.startsWith(rootFile.getPath()))
-                .findFirst()
-                .map(VirtualFile::getPath)
+    public @Nullable Path getClassesOutput() {
+        return Optional.ofNullable(CompilerModuleExtension.getInstance(module))
+                .map(CompilerModuleExtension::getCompilerOutputUrl)
+                .map(VfsUtilCore::urlToPath)
                 .map(Paths::get)
                 .orElse(null);
     }
 
+    /**
+     * Checks that the file is inside the asset folder of this module.
+     *
+     * @param file the file.
+     * @return true if the file can be opened in jMB.
+     */
+    public boolean isInAssetFolder(@NotNull VirtualFile file) {
+
+        VirtualFile assetFolder = getAssetRoots().assetFolder;
+
+        if (assetFolder == null) {
+            return false;
+        }
+
+        for (VirtualFile ancestor = file; ancestor != null; ancestor = ancestor.getParent()) {
+            if (assetFolder.equals(ancestor)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Gets the asset roots of this module, they are collected once and reused until roots
+     * of the project are changed, the same as the snapshot of libraries.
+     *
+     * @return the asset roots.
+     */
+    private @NotNull AssetRoots getAssetRoots() {
+
+        AssetRoots current = assetRoots.get();
+
+        if (current != null) {
+            return current;
+        }
+
+        // see getClasspath
+        return ReadAction.compute(() -> {
+            AssetRoots collected = new AssetRoots(findAssetsFolder(rootManager.getSourceRoots(RESOURCE)));
+            return assetRoots.compareAndSet(null, collected) ? collected : assetRoots.get();
+        });
+    }
+
     /**
      * Finds the assets folder of the module.
      *
+     * @param resourceRoots the resource roots of the module.
      * @return the assets folder or null.
      */
-    private @NotNull Optional<VirtualFile> findAssetsFolder() {
+    private static @Nullable VirtualFile findAssetsFolder(@NotNull List<VirtualFile> resourceRoots) {
 
-        Optional<VirtualFile> assetsFolder = rootManager.getSourceRoots(RESOURCE).stream()
-                .filter(file -> file.getName().endsWith(FOLDER_ASSETS))
-                .findFirst();
-
-        if (assetsFolder.isPresent()) {
-            return assetsFolder;
+        for (VirtualFile root : resourceRoots) {
+            if (root.getName().endsWith(FOLDER_ASSETS)) {
+                return root;
+            }
         }
 
-        return rootManager.getSourceRoots(RESOURCE)
-                .stream()
-                .findFirst();
+        return resourceRoots.isEmpty() ? null : resourceRoots.get(0);
     }
 
     /**
      * Sends the command to jMB.
      *
      * @param command the command.
+     * @return the future of the acknowledgement of the command.
      */
-    public void sendCommand(@NotNull ClientCommand command) {
-        jmbInstance.sendCommand(command, module.getProject());
+    public @NotNull CompletableFuture<JmbAcknowledgement> sendCommand(@NotNull ClientCommand command) {
+        return jmbSession.sendCommand(command);
     }
 
     @Override
     public void disposeComponent() {
         notificationListener.dispose();
+        JmbService.getInstance().detach(module);
+    }
+
+    /**
+     * The immutable asset roots of a module.
+     */
+    private static class AssetRoots {
+
+        @Nullable
+        private final VirtualFile assetFolder;
+
+        @Nullable
+        private final Path assetFolderPath;
+
+        private AssetRoots(@Nullable VirtualFile assetFolder) {
+            this.assetFolder = assetFolder;
+            this.assetFolderPath = assetFolder == null ? null : Paths.get(assetFolder.getPath());
+        }
     }
 }
@@ -18,12 +18,114 @@ public class JmePluginState {
     @NotNull
     private static final String DEFAULT_JMB_PATH = "";
 
+    private static final int DEFAULT_SYNC_QUIET_WINDOW = 1000;
+
+    private static final int DEFAULT_COMPRESSION_THRESHOLD = 16;
+
+    private static final int DEFAULT_HEARTBEAT_MISS_LIMIT = 3;
+
+    private static final int DEFAULT_JMB_IDLE_TIMEOUT = 0;
+
     @NotNull
     @Property
     private String jmbPath;
 
+    /**
+     * The flag to launch jMB in background after resolving a jME module.
+     */
+    @Property
+    private boolean prewarmJmb;
+
+    /**
+     * The flag to restart jMB in background after an abnormal exit.
+     */
+    @Property
+    private boolean restartJmbOnCrash;
+
+    /**
+     * The time in ms without changes of a module to wait before synchronizing it with jMB.
+     */
+    @Property
+    private int syncQuietWindow;
+
+    /**
+     * The min size in KB of a command to compress it or 0 to disable compression.
+     */
+    @Property
+    private int compressionThreshold;
+
+    /**
+     * The count of missed heartbeats after which jMB is considered as unhealthy and is restarted.
+     */
+    @Property
+    private int heartbeatMissLimit;
+
+    /**
+     * The time in minutes without sent commands after which jMB is stopped or 0 to keep it running.
+     */
+    @Property
+    private int jmbIdleTimeout;
+
+    /**
+     * The JVM settings to launch jMB from a jar.
+     */
+    @NotNull
+    @Property
+    private JmbLaunchProfile launchProfile;
+
+    /**
+     * The resident memory in MB of jMB to warn about or 0 to not warn.
+     */
+    @Property
+    private int jmbMemoryWarning;
+
+    /**
+     * The resident memory in MB of jMB after which it's restarted or 0 to not restart.
+     */
+    @Property
+    private int jmbMemoryCeiling;
+
+    /**
+     * The path of the last successfully checked jMB.
+     */
+    @NotNull
+    @Property
+    private String checkedJmbPath;
+
+    /**
+     * The size of the last successfully checked jMB.
+     */
+    @Property
+    private long checkedJmbSize;
+
+    /**
+     * The last modified time of the last successfully checked jMB.
+     */
+    @Property
+    private long checkedJmbModified;
+
+    /**
+     * The content hash of the last successfully checked jMB.
+     */
+    @NotNull
+    @Property
+    private String checkedJmbHash;
+
+    /**
+     * The API version which the last successfully checked jMB was checked with.
+     */
+    @Property
+    private int checkedJmbApiVersion;
+
     JmePluginState() {
         this.jmbPath = DEFAULT_JMB_PATH;
+        this.syncQuietWindow = DEFAULT_SYNC_QUIET_WINDOW;
+        this.compressionThreshold = DEFAULT_COMPRESSION_THRESHOLD;
+        this.heartbeatMissLimit = DEFAULT_HEARTBEAT_MISS_LIMIT;
+        this.jmbIdleTimeout = DEFAULT_JMB_IDLE_TIMEOUT;
+        this.launchProfile = new JmbLaunchProfile();
+        this.checkedJmbPath = "";
+        this.checkedJmbHash = "";
     }
 
     /**
@@ -34,8 +136,29 @@ public class JmePluginState {
     void copyOf(@Nullable JmePluginState other) {
         if (other == null) {
             this.jmbPath = DEFAULT_JMB_PATH;
+            this.prewarmJmb = false;
+            this.restartJmbOnCrash = false;
+            this.syncQuietWindow = DEFAULT_SYNC_QUIET_WINDOW;
+            this.compressionThreshold = DEFAULT_COMPRESSION_THRESHOLD;
+            this.heartbeatMissLimit = DEFAULT_HEARTBEAT_MISS_LIMIT;
+            this.jmbIdleTimeout = DEFAULT_JMB_IDLE_TIMEOUT;
+            this.launchProfile.copyOf(null);
+            this.jmbMemoryWarning = 0;
+            this.jmbMemoryCeiling = 0;
+            setCheckedJmb("", 0, 0, "", 0);
         } else {
             this.jmbPath = other.jmbPath;
+            this.prewarmJmb = other.prewarmJmb;
+            this.restartJmbOnCrash = other.restartJmbOnCrash;
+            this.syncQuietWindow = other.syncQuietWindow;
+            this.compressionThreshold = other.compressionThreshold;
+            this.heartbeatMissLimit = other.heartbeatMissLimit;
+            this.jmbIdleTimeout = other.jmbIdleTimeout;
+            this.launchProfile.copyOf(other.launchProfile);
+            this.jmbMemoryWarning = other.jmbMemoryWarning;
+            this.jmbMemoryCeiling = other.jmbMemoryCeiling;
+            setCheckedJmb(other.checkedJmbPath, other.checkedJmbSize, other.checkedJmbModified,
+                    other.checkedJmbHash, other.checkedJmbApiVersion);
         }
     }
 
@@ -52,4 +175,99 @@ public class JmePluginState {
     public String getJmbPath() {
         return jmbPath;
     }
+
+    /**
+     * Sets the flag to launch jMB in background after resolving a jME module.
+     *
+     * @param prewarmJmb true if jMB should be launched in background.
+     */
+    public void setPrewarmJmb(boolean prewarmJmb) {
+        this.prewarmJmb = prewarmJmb;
+    }
+
+    /**
+     * Sets the flag to restart jMB in background after an abnormal exit.
+     *
+     * @param restartJmbOnCrash true if jMB should be restarted.
+     */
+    public void setRestartJmbOnCrash(boolean restartJmbOnCrash) {
+        this.restartJmbOnCrash = restartJmbOnCrash;
+    }
+
+    /**
+     * Sets the time in ms without changes of a module to wait before synchronizing it with jMB.
+     *
+     * @param syncQuietWindow the time in ms.
+     */
+    public void setSyncQuietWindow(int syncQuietWindow) {
+        this.syncQuietWindow = Math.max(syncQuietWindow, 0);
+    }
+
+    /**
+     * Sets the min size in KB of a command to compress it.
+     *
+     * @param compressionThreshold the size in KB or 0 to disable compression.
+     */
+    public void setCompressionThreshold(int compressionThreshold) {
+        this.compressionThreshold = Math.max(compressionThreshold, 0);
+    }
+
+    /**
+     * Sets the count of missed heartbeats after which jMB is considered as unhealthy and is restarted.
+     *
+     * @param heartbeatMissLimit the count of missed heartbeats.
+     */
+    public void setHeartbeatMissLimit(int heartbeatMissLimit) {
+        this.heartbeatMissLimit = Math.max(heartbeatMissLimit, 1);
+    }
+
+    /**
+     * Sets the time in minutes without sent commands after which jMB is stopped.
+     *
+     * @param jmbIdleTimeout the time in minutes or 0 to keep jMB running.
+     */
+    public void setJmbIdleTimeout(int jmbIdleTimeout) {
+        this.jmbIdleTimeout = Math.max(jmbIdleTimeout, 0);
+    }
+
+    /**
+     * Sets the resident memory of jMB to warn about.
+     *
+     * @param jmbMemoryWarning the memory in MB or 0 to not warn.
+     */
+    public void setJmbMemoryWarning(int jmbMemoryWarning) {
+        this.jmbMemoryWarning = Math.max(jmbMemoryWarning, 0);
+    }
+
+    /**
+     * Sets the resident memory of jMB after which it's restarted.
+     *
+     * @param jmbMemoryCeiling the memory in MB or 0 to not restart.
+     */
+    public void setJmbMemoryCeiling(int jmbMemoryCeiling) {
+        this.jmbMemoryCeiling = Math.max(jmbMemoryCeiling, 0);
+    }
+
+    /**
+     * Sets the fingerprint of the last successfully checked jMB.
+     *
+     * @param path       the path to jMB.
+     * @param size       the size of jMB.
+     * @param modified   the last modified time of jMB.
+     * @param hash       the content hash of jMB.
+     * @param apiVersion the API version which jMB was checked with.
+     */
+    public void setCheckedJmb(
+            @Nullable String path,
+            long size,
+            long modified,
+            @Nullable String hash,
+            int apiVersion
+    ) {
+        this.checkedJmbPath = path == null ? "" : path;
+        this.checkedJmbSize = size;
+        this.checkedJmbModified = modified;
+        this.checkedJmbHash = hash == null ? "" : hash;
+        this.checkedJmbApiVersion = apiVersion;
+    }
 }
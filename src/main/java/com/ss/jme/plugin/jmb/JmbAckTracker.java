@@ -0,0 +1,218 @@
+package com.ss.jme.plugin.jmb;
+
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.util.concurrency.AppExecutorUtil;
+import com.ss.jme.plugin.jmb.command.client.ClientCommand;
+import com.ss.jme.plugin.util.JmeConstants;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The tracker of sent commands which are waiting for acknowledgements from jMB.
+ * Retryable commands without an acknowledgement are resent and commands superseded by newer ones aren't resent,
+ * other commands without an acknowledgement are failed.
+ *
+ * @author JavaSaBr
+ */
+class JmbAckTracker {
+
+    @NotNull
+    private static final Logger LOG = Logger.getInstance("#com.ss.jme.plugin.jmb.JmbAckTracker");
+
+    /**
+     * The sent commands by request ids.
+     */
+    @NotNull
+    private final Map<Long, PendingAck> pending;
+
+    /**
+     * The generator of request ids.
+     */
+    @NotNull
+    private final AtomicLong requestIds;
+
+    /**
+     * The dispatcher to resend commands.
+     */
+    @NotNull
+    private final JmbCommandDispatcher dispatcher;
+
+    /**
+     * The periodic checking of timeouts.
+     */
+    @NotNull
+    private final ScheduledFuture<?> timeoutsCheck;
+
+    JmbAckTracker(@NotNull JmbCommandDispatcher dispatcher) {
+        this.pending = new ConcurrentHashMap<>();
+        this.requestIds = new AtomicLong();
+        this.dispatcher = dispatcher;
+        this.timeoutsCheck = AppExecutorUtil.getAppScheduledExecutorService()
+                .scheduleWithFixedDelay(this::checkTimeouts, 1, 1, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Registers the command which is going to be sent to jMB.
+     *
+     * @param session      the session of the command.
+     * @param command      the command.
+     * @param onlyIfActive true if the command should be sent only if the session is active.
+     */
+    void onSend(@NotNull JmbSession session, @NotNull ClientCommand command, boolean onlyIfActive) {
+
+        if (command.getRequestId() == 0) {
+            command.setRequestId(requestIds.incrementAndGet());
+        }
+
+        Object supersedeKey = command.getSupersedeKey();
+
+        if (supersedeKey != null) {
+            for (Iterator<PendingAck> iterator = pending.values().iterator(); iterator.hasNext(); ) {
+
+                PendingAck other = iterator.next();
+                ClientCommand otherCommand = other.command;
+
+                if (other.session == session && otherCommand != command &&
+                        Objects.equals(supersedeKey, otherCommand.getSupersedeKey())) {
+                    LOG.debug("stop waiting for the superseded command: ", otherCommand.getRequestId());
+                    iterator.remove();
+                    otherCommand.getAcknowledgement().cancel(false);
+                }
+            }
+        }
+
+        pending.putIfAbsent(command.getRequestId(), new PendingAck(session, command, onlyIfActive));
+    }
+
+    /**
+     * Completes waiting for the acknowledgement of the command.
+     *
+     * @param requestId      the request id of the command.
+     * @param status         the status of processing.
+     * @param processingTime the time in ms which jMB spent to process the command.
+     */
+    void onAcknowledged(long requestId, int status, long processingTime) {
+
+        PendingAck acknowledged = pending.remove(requestId);
+
+        if (acknowledged == null) {
+            LOG.debug("received an acknowledgement of unknown request: ", requestId);
+            return;
+        }
+
+        long latency = System.currentTimeMillis() - acknowledged.firstSentTime;
+        ClientCommand command = acknowledged.command;
+
+        LOG.debug("the command ", command.getClass().getSimpleName(), " was processed with the status ", status,
+                " in ", processingTime, " ms, the latency is ", latency, " ms.");
+
+        command.getAcknowledgement()
+                .complete(new JmbAcknowledgement(requestId, status, processingTime, latency));
+    }
+
+    /**
+     * Stops waiting for acknowledgements of commands of the session.
+     *
+     * @param session the session.
+     */
+    void remove(@NotNull JmbSession session) {
+        for (Iterator<PendingAck> iterator = pending.values().iterator(); iterator.hasNext(); ) {
+            PendingAck waiting = iterator.next();
+            if (waiting.session == session) {
+                iterator.remove();
+                waiting.command.getAcknowledgement().cancel(false);
+            }
+        }
+    }
+
+    /**
+     * Stops waiting for all acknowledgements.
+     */
+    void clear() {
+        for (Iterator<PendingAck> iterator = pending.values().iterator(); iterator.hasNext(); ) {
+            PendingAck waiting = iterator.next();
+            iterator.remove();
+            waiting.command.getAcknowledgement().cancel(false);
+        }
+    }
+
+    /**
+     * Stops waiting for all acknowledgements and checking timeouts.
+     */
+    void dispose() {
+        timeoutsCheck.cancel(false);
+        clear();
+    }
+
+    /**
+     * Resends or fails commands which weren't acknowledged in time.
+     */
+    private void checkTimeouts() {
+
+        long now = System.currentTimeMillis();
+
+        for (Iterator<PendingAck> iterator = pending.values().iterator(); iterator.hasNext(); ) {
+
+            PendingAck waiting = iterator.next();
+            ClientCommand command = waiting.command;
+
+            if (command.getAcknowledgement().isDone()) {
+                iterator.remove();
+                continue;
+            } else if (now - waiting.lastSentTime < JmeConstants.JMB_ACK_TIMEOUT) {
+                continue;
+            }
+
+            if (command.isRetryable() && waiting.retries < JmeConstants.JMB_ACK_MAX_RETRIES) {
+                LOG.debug("resend the not acknowledged command: ", command.getRequestId());
+                waiting.retries++;
+                waiting.lastSentTime = now;
+                if (dispatcher.resend(waiting.session, command, waiting.onlyIfActive)) {
+                    continue;
+                }
+            }
+
+            LOG.warn("The command " + command.getClass().getSimpleName() + " wasn't acknowledged by jMB.");
+
+            iterator.remove();
+            command.getAcknowledgement()
+                    .completeExceptionally(new TimeoutException("The command wasn't acknowledged by jMB."));
+        }
+    }
+
+    /**
+     * The sent command which is waiting for an acknowledgement.
+     */
+    private static class PendingAck {
+
+        @NotNull
+        private final JmbSession session;
+
+        @NotNull
+        private final ClientCommand command;
+
+        private final boolean onlyIfActive;
+
+        private final long firstSentTime;
+
+        private volatile long lastSentTime;
+
+        private volatile int retries;
+
+        private PendingAck(@NotNull JmbSession session, @NotNull ClientCommand command, boolean onlyIfActive) {
+            this.session = session;
+            this.command = command;
+            this.onlyIfActive = onlyIfActive;
+            this.firstSentTime = System.currentTimeMillis();
+            this.lastSentTime = firstSentTime;
+        }
+    }
+}
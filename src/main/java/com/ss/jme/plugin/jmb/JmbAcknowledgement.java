@@ -0,0 +1,97 @@
+package com.ss.jme.plugin.jmb;
+
+/**
+ * The acknowledgement of processing a command by jMB.
+ *
+ * @author JavaSaBr
+ */
+public final class JmbAcknowledgement {
+
+    /**
+     * The status of successfully processed command.
+     */
+    public static final int STATUS_OK = 0;
+
+    /**
+     * The status of a command which was sent to jMB without support of acknowledgements.
+     */
+    public static final int STATUS_UNCONFIRMED = -1;
+
+    /**
+     * The id of the acknowledged request.
+     */
+    private final long requestId;
+
+    /**
+     * The status of processing.
+     */
+    private final int status;
+
+    /**
+     * The time in ms which jMB spent to process the command.
+     */
+    private final long processingTime;
+
+    /**
+     * The time in ms from the first sending the command to receiving this acknowledgement.
+     */
+    private final long latency;
+
+    public JmbAcknowledgement(long requestId, int status, long processingTime, long latency) {
+        this.requestId = requestId;
+        this.status = status;
+        this.processingTime = processingTime;
+        this.latency = latency;
+    }
+
+    /**
+     * Gets the id of the acknowledged request.
+     *
+     * @return the id of the acknowledged request.
+     */
+    public long getRequestId() {
+        return requestId;
+    }
+
+    /**
+     * Gets the status of processing.
+     *
+     * @return the status of processing.
+     */
+    public int getStatus() {
+        return status;
+    }
+
+    /**
+     * Returns true if the command was processed successfully.
+     *
+     * @return true if the command was processed successfully.
+     */
+    public boolean isSuccess() {
+        return status == STATUS_OK;
+    }
+
+    /**
+     * Gets the time in ms which jMB spent to process the command.
+     *
+     * @return the processing time.
+     */
+    public long getProcessingTime() {
+        return processingTime;
+    }
+
+    /**
+     * Gets the time in ms from the first sending the command to receiving this acknowledgement.
+     *
+     * @return the end-to-end latency.
+     */
+    public long getLatency() {
+        return latency;
+    }
+
+    @Override
+    public String toString() {
+        return "JmbAcknowledgement{requestId=" + requestId + ", status=" + status +
+                ", processingTime=" + processingTime + ", latency=" + latency + '}';
+    }
+}
@@ -0,0 +1,99 @@
+package com.ss.jme.plugin.jmb;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * The pool of direct buffers with sizes from 64 KB to 64 MB which are powers of two.
+ *
+ * @author JavaSaBr
+ */
+class JmbBufferPool {
+
+    /**
+     * The size of the smallest buffer.
+     */
+    static final int MIN_SIZE = 64 * 1024;
+
+    /**
+     * The size of the largest buffer.
+     */
+    static final int MAX_SIZE = 64 * 1024 * 1024;
+
+    /**
+     * The max count of free buffers of each size.
+     */
+    private static final int MAX_FREE_BUFFERS = 2;
+
+    /**
+     * The free buffers by size classes.
+     */
+    @NotNull
+    private final Queue<ByteBuffer>[] buffers;
+
+    @SuppressWarnings("unchecked")
+    JmbBufferPool() {
+        this.buffers = new Queue[sizeClass(MAX_SIZE) + 1];
+        for (int i = 0; i < buffers.length; i++) {
+            buffers[i] = new ConcurrentLinkedQueue<>();
+        }
+    }
+
+    /**
+     * Takes a cleared buffer with at least the size.
+     *
+     * @param size the min size of the buffer.
+     * @return the buffer.
+     * @throws IllegalArgumentException if the size is more than {@link #MAX_SIZE}.
+     */
+    @NotNull ByteBuffer take(int size) {
+
+        if (size > MAX_SIZE) {
+            throw new IllegalArgumentException("The size " + size + " is more than " + MAX_SIZE);
+        }
+
+        int sizeClass = sizeClass(size);
+        ByteBuffer buffer = buffers[sizeClass].poll();
+
+        if (buffer == null) {
+            buffer = ByteBuffer.allocateDirect(MIN_SIZE << sizeClass);
+        }
+
+        buffer.clear();
+        return buffer;
+    }
+
+    /**
+     * Returns the buffer to this pool.
+     *
+     * @param buffer the buffer.
+     */
+    void release(@NotNull ByteBuffer buffer) {
+
+        Queue<ByteBuffer> free = buffers[sizeClass(buffer.capacity())];
+
+        if (free.size() < MAX_FREE_BUFFERS) {
+            free.add(buffer);
+        }
+    }
+
+    /**
+     * Gets the index of the size class of buffers which can contain the size.
+     *
+     * @param size the size.
+     * @return the index of the size class.
+     */
+    private static int sizeClass(int size) {
+
+        int sizeClass = 0;
+
+        while ((MIN_SIZE << sizeClass) < size) {
+            sizeClass++;
+        }
+
+        return sizeClass;
+    }
+}
@@ -0,0 +1,115 @@
+package com.ss.jme.plugin.jmb;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * The flags of optional protocol features which are negotiated with jMB at connect time.
+ * A feature is used only if both the plugin and the connected jMB support it.
+ *
+ * @author JavaSaBr
+ */
+public class JmbCapabilities {
+
+    /**
+     * jMB doesn't support any optional feature, it's a jMB without the handshake.
+     */
+    public static final int NONE = 0;
+
+    /**
+     * Each command starts with a request id and jMB acknowledges processed commands.
+     */
+    public static final int ACKNOWLEDGEMENTS = 1;
+
+    /**
+     * Lists of paths are written by front coding.
+     */
+    public static final int FRONT_CODING = 1 << 1;
+
+    /**
+     * Changes of libraries are sent as versioned deltas.
+     */
+    public static final int CLASSPATH_DELTAS = 1 << 2;
+
+    /**
+     * Only changed compiled classes are sent after a build.
+     */
+    public static final int CHANGED_CLASSES = 1 << 3;
+
+    /**
+     * Commands larger than a network buffer are split to chunks.
+     */
+    public static final int CHUNKS = 1 << 4;
+
+    /**
+     * Commands larger than the configured threshold are compressed by deflate.
+     */
+    public static final int COMPRESSION = 1 << 5;
+
+    /**
+     * Several files can be opened by one command.
+     */
+    public static final int BATCH_OPEN = 1 << 6;
+
+    /**
+     * jMB answers heartbeats to detect a hung instance.
+     */
+    public static final int HEARTBEAT = 1 << 7;
+
+    /**
+     * jMB can be asked to exit gracefully by a command.
+     */
+    public static final int SHUTDOWN = 1 << 8;
+
+    /**
+     * The features which are supported by this plugin.
+     */
+    public static final int SUPPORTED = ACKNOWLEDGEMENTS | FRONT_CODING | CLASSPATH_DELTAS | CHANGED_CLASSES |
+            CHUNKS | COMPRESSION | BATCH_OPEN | HEARTBEAT | SHUTDOWN;
+
+    /**
+     * Checks that the capabilities contain the feature.
+     *
+     * @param capabilities the capabilities.
+     * @param feature      the feature.
+     * @return true if the feature is enabled.
+     */
+    public static boolean has(int capabilities, int feature) {
+        return (capabilities & feature) == feature;
+    }
+
+    /**
+     * Gets a readable presentation of the capabilities.
+     *
+     * @param capabilities the capabilities.
+     * @return the readable presentation.
+     */
+    public static @NotNull String toString(int capabilities) {
+
+        StringBuilder result = new StringBuilder("[");
+
+        append(result, capabilities, ACKNOWLEDGEMENTS, "acknowledgements");
+        append(result, capabilities, FRONT_CODING, "front coding");
+        append(result, capabilities, CLASSPATH_DELTAS, "classpath deltas");
+        append(result, capabilities, CHANGED_CLASSES, "changed classes");
+        append(result, capabilities, CHUNKS, "chunks");
+        append(result, capabilities, COMPRESSION, "compression");
+        append(result, capabilities, BATCH_OPEN, "batch open");
+        append(result, capabilities, HEARTBEAT, "heartbeat");
+        append(result, capabilities, SHUTDOWN, "shutdown");
+
+        return result.append(']').toString();
+    }
+
+    private static void append(@NotNull StringBuilder result, int capabilities, int feature, @NotNull String name) {
+
+        if (!has(capabilities, feature)) {
+            return;
+        }
+
+        if (result.length() > 1) {
+            result.append(", ");
+        }
+
+        result.append(name);
+    }
+}
@@ -0,0 +1,160 @@
+package com.ss.jme.plugin.jmb;
+
+import com.ss.rlib.common.util.array.Array;
+import com.ss.rlib.common.util.array.ArrayCollectors;
+import org.jetbrains.annotations.NotNull;
+
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * The immutable snapshot of libraries of a module.
+ *
+ * @author JavaSaBr
+ */
+public final class JmbClasspathSnapshot {
+
+    /**
+     * Creates a snapshot of the libraries, later changes of the array don't change the snapshot.
+     *
+     * @param libraries the libraries.
+     * @return the snapshot.
+     */
+    public static @NotNull JmbClasspathSnapshot of(@NotNull Array<Path> libraries) {
+        return new JmbClasspathSnapshot(copy(libraries));
+    }
+
+    private static @NotNull Array<Path> copy(@NotNull Array<Path> libraries) {
+        return libraries.stream().collect(ArrayCollectors.toArray(Path.class));
+    }
+
+    /**
+     * The libraries.
+     */
+    @NotNull
+    private final Array<Path> libraries;
+
+    /**
+     * The set of the libraries.
+     */
+    @NotNull
+    private final Set<Path> librarySet;
+
+    /**
+     * The hash of the ordered libraries.
+     */
+    private final int hash;
+
+    private JmbClasspathSnapshot(@NotNull Array<Path> libraries) {
+        this.libraries = libraries;
+        this.librarySet = new HashSet<>(libraries.size());
+
+        int hash = 1;
+
+        for (Path library : libraries) {
+            librarySet.add(library);
+            hash = 31 * hash + library.hashCode();
+        }
+
+        this.hash = hash;
+    }
+
+    /**
+     * Gets a copy of the libraries, so the snapshot can't be changed by its users.
+     *
+     * @return the copy of the libraries.
+     */
+    public @NotNull Array<Path> getLibraries() {
+        return copy(libraries);
+    }
+
+    /**
+     * Gets the hash of the ordered libraries.
+     *
+     * @return the hash.
+     */
+    public int getHash() {
+        return hash;
+    }
+
+    /**
+     * Checks that the snapshot contains the same libraries in the same order.
+     *
+     * @param other the other snapshot.
+     * @return true if the snapshots have the same libraries.
+     */
+    public boolean isSameAs(@NotNull JmbClasspathSnapshot other) {
+
+        if (this == other) {
+            return true;
+        } else if (hash != other.hash || libraries.size() != other.libraries.size()) {
+            return false;
+        }
+
+        for (int i = 0, length = libraries.size(); i < length; i++) {
+            if (!libraries.get(i).equals(other.libraries.get(i))) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Checks that the libraries are the kept libraries of the base snapshot in the same order followed by
+     * the added libraries, so jMB which applies changes since the base snapshot gets the same order.
+     *
+     * @param base the base snapshot.
+     * @return true if the changes since the base snapshot keep the order of libraries.
+     */
+    public boolean keepsOrderOf(@NotNull JmbClasspathSnapshot base) {
+
+        int index = 0;
+        int length = libraries.size();
+
+        for (Path library : base.libraries) {
+
+            if (!librarySet.contains(library)) {
+                continue;
+            } else if (index >= length || !library.equals(libraries.get(index))) {
+                return false;
+            }
+
+            index++;
+        }
+
+        // the rest should be only added libraries
+        for (; index < length; index++) {
+            if (base.librarySet.contains(libraries.get(index))) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Gets libraries which were added since the base snapshot.
+     *
+     * @param base the base snapshot.
+     * @return the added libraries.
+     */
+    public @NotNull Array<Path> getAddedSince(@NotNull JmbClasspathSnapshot base) {
+        return libraries.stream()
+                .filter(library -> !base.librarySet.contains(library))
+                .collect(ArrayCollectors.toArray(Path.class));
+    }
+
+    /**
+     * Gets libraries which were removed since the base snapshot.
+     *
+     * @param base the base snapshot.
+     * @return the removed libraries.
+     */
+    public @NotNull Array<Path> getRemovedSince(@NotNull JmbClasspathSnapshot base) {
+        return base.libraries.stream()
+                .filter(library -> !librarySet.contains(library))
+                .collect(ArrayCollectors.toArray(Path.class));
+    }
+}
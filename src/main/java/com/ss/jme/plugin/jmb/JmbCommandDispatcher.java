@@ -0,0 +1,332 @@
+package com.ss.jme.plugin.jmb;
+
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.util.concurrency.AppExecutorUtil;
+import com.ss.jme.plugin.jmb.command.client.ClientCommand;
+import com.ss.jme.plugin.jmb.command.client.ClientCommand.Priority;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
+
+/**
+ * The dispatcher to send commands of sessions to jMB with respecting their priorities.
+ * Interactive commands of all sessions are sent before background synchronization commands.
+ *
+ * @author JavaSaBr
+ */
+class JmbCommandDispatcher {
+
+    @NotNull
+    private static final Logger LOG = Logger.getInstance("#com.ss.jme.plugin.jmb.JmbCommandDispatcher");
+
+    /**
+     * The max count of queued interactive commands of a session.
+     */
+    private static final int INTERACTIVE_CAPACITY = 32;
+
+    /**
+     * The max count of queued synchronization commands of a session.
+     */
+    private static final int SYNC_CAPACITY = 16;
+
+    /**
+     * The function to send a command of a session to jMB.
+     */
+    @FunctionalInterface
+    interface Sender {
+
+        /**
+         * Sends the command of the session to jMB.
+         *
+         * @param session      the session.
+         * @param command      the command.
+         * @param onlyIfActive true if the command should be sent only if the session is active.
+         */
+        void send(@NotNull JmbSession session, @NotNull ClientCommand command, boolean onlyIfActive);
+    }
+
+    /**
+     * The queues of sessions.
+     */
+    @NotNull
+    private final Map<JmbSession, CommandQueue> queues;
+
+    /**
+     * The executor to send commands, it runs one task at a time on the application pool.
+     */
+    @NotNull
+    private final ExecutorService executor;
+
+    /**
+     * The flag of scheduled sending.
+     */
+    @NotNull
+    private final AtomicBoolean scheduled;
+
+    /**
+     * The condition of availability to send commands.
+     */
+    @NotNull
+    private final BooleanSupplier canSend;
+
+    /**
+     * The function to send commands.
+     */
+    @NotNull
+    private final Sender sender;
+
+    /**
+     * The flag of disposed dispatcher.
+     */
+    private volatile boolean disposed;
+
+    JmbCommandDispatcher(@NotNull BooleanSupplier canSend, @NotNull Sender sender) {
+        this.queues = new ConcurrentHashMap<>();
+        this.executor = AppExecutorUtil.createBoundedApplicationPoolExecutor("jMB Command Dispatcher", 1);
+        this.scheduled = new AtomicBoolean();
+        this.canSend = canSend;
+        this.sender = sender;
+    }
+
+    /**
+     * Puts the command of the session to the queue.
+     *
+     * @param session      the session.
+     * @param command      the command.
+     * @param onlyIfActive true if the command should be sent only if the session is active.
+     * @return false if the queue of the session is full.
+     */
+    boolean dispatch(@NotNull JmbSession session, @NotNull ClientCommand command, boolean onlyIfActive) {
+
+        CommandQueue queue = queues.computeIfAbsent(session, key -> new CommandQueue());
+
+        if (!queue.offer(new Entry(command, onlyIfActive), false)) {
+
+            String message = "The queue of " + command.getPriority() + " commands of the module " +
+                    session.getModule() + " is full, the command " + command.getClass().getSimpleName() +
+                    " was rejected.";
+
+            LOG.warn(message);
+
+            command.getAcknowledgement()
+                    .completeExceptionally(new RejectedExecutionException(message));
+
+            return false;
+        }
+
+        schedule();
+        return true;
+    }
+
+    /**
+     * Puts the not acknowledged command of the session to the queue again. The command is cancelled instead
+     * of resending if a newer command with the same supersede key is already queued.
+     *
+     * @param session      the session.
+     * @param command      the command.
+     * @param onlyIfActive true if the command should be sent only if the session is active.
+     * @return false if the session doesn't have a queue or the queue is full.
+     */
+    boolean resend(@NotNull JmbSession session, @NotNull ClientCommand command, boolean onlyIfActive) {
+
+        CommandQueue queue = queues.get(session);
+
+        if (queue == null || !queue.offer(new Entry(command, onlyIfActive), true)) {
+            return false;
+        }
+
+        schedule();
+        return true;
+    }
+
+    /**
+     * Schedules sending queued commands if it's available.
+     */
+    void schedule() {
+        if (!disposed && canSend.getAsBoolean() && scheduled.compareAndSet(false, true)) {
+            executor.execute(this::sendQueuedCommands);
+        }
+    }
+
+    /**
+     * Removes all queued commands.
+     */
+    void clear() {
+        queues.values().forEach(CommandQueue::clear);
+    }
+
+    /**
+     * Removes all queued commands and stops sending, the threads of the application pool aren't owned
+     * by the dispatcher, so the executor isn't shut down.
+     */
+    void dispose() {
+        disposed = true;
+        clear();
+    }
+
+    /**
+     * Removes the queue of the session.
+     *
+     * @param session the session.
+     */
+    void remove(@NotNull JmbSession session) {
+
+        CommandQueue queue = queues.remove(session);
+
+        if (queue != null) {
+            queue.clear();
+        }
+    }
+
+    /**
+     * Sends queued commands while it's available.
+     */
+    private void sendQueuedCommands() {
+
+        scheduled.set(false);
+
+        while (!disposed && canSend.getAsBoolean()) {
+
+            SessionEntry next = poll(Priority.INTERACTIVE);
+
+            if (next == null) {
+                next = poll(Priority.SYNC);
+            }
+
+            if (next == null) {
+                return;
+            }
+
+            ClientCommand command = next.entry.command;
+
+            // a failed command must not stop sending of the next commands
+            try {
+                sender.send(next.session, command, next.entry.onlyIfActive);
+            } catch (RuntimeException e) {
+                LOG.warn("failed to send the command " + command.getClass().getSimpleName(), e);
+                command.getAcknowledgement().completeExceptionally(e);
+            }
+        }
+    }
+
+    /**
+     * Polls the next command with the priority from queues of all sessions.
+     *
+     * @param priority the priority.
+     * @return the next command or null.
+     */
+    private @Nullable SessionEntry poll(@NotNull Priority priority) {
+
+        for (Map.Entry<JmbSession, CommandQueue> entry : queues.entrySet()) {
+
+            Entry polled = entry.getValue().poll(priority);
+
+            if (polled != null) {
+                return new SessionEntry(entry.getKey(), polled);
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * The queued command.
+     */
+    private static class Entry {
+
+        @NotNull
+        private final ClientCommand command;
+
+        private final boolean onlyIfActive;
+
+        private Entry(@NotNull ClientCommand command, boolean onlyIfActive) {
+            this.command = command;
+            this.onlyIfActive = onlyIfActive;
+        }
+    }
+
+    /**
+     * The queued command with its session.
+     */
+    private static class SessionEntry {
+
+        @NotNull
+        private final JmbSession session;
+
+        @NotNull
+        private final Entry entry;
+
+        private SessionEntry(@NotNull JmbSession session, @NotNull Entry entry) {
+            this.session = session;
+            this.entry = entry;
+        }
+    }
+
+    /**
+     * The bounded queue of commands of a session with a lane per priority.
+     */
+    private static class CommandQueue {
+
+        @NotNull
+        private final Deque<Entry> interactive = new ArrayDeque<>();
+
+        @NotNull
+        private final Deque<Entry> sync = new ArrayDeque<>();
+
+        private synchronized boolean offer(@NotNull Entry entry, boolean resending) {
+
+            ClientCommand command = entry.command;
+
+            Deque<Entry> lane = command.getPriority() == Priority.INTERACTIVE ? interactive : sync;
+            int capacity = lane == interactive ? INTERACTIVE_CAPACITY : SYNC_CAPACITY;
+
+            Object supersedeKey = command.getSupersedeKey();
+
+            if (supersedeKey != null) {
+                for (Iterator<Entry> iterator = lane.iterator(); iterator.hasNext(); ) {
+                    Entry queued = iterator.next();
+                    if (!Objects.equals(supersedeKey, queued.command.getSupersedeKey())) {
+                        continue;
+                    }
+                    // the queued command is newer than the resent one
+                    if (resending) {
+                        LOG.debug("don't resend the superseded command: ", command.getClass().getSimpleName());
+                        command.getAcknowledgement().cancel(false);
+                        return true;
+                    }
+                    LOG.debug("drop the superseded command: ", queued.command.getClass().getSimpleName());
+                    iterator.remove();
+                    queued.command.getAcknowledgement().cancel(false);
+                }
+            }
+
+            if (lane.size() >= capacity) {
+                return false;
+            }
+
+            lane.add(entry);
+            return true;
+        }
+
+        private synchronized @Nullable Entry poll(@NotNull Priority priority) {
+            return priority == Priority.INTERACTIVE ? interactive.poll() : sync.poll();
+        }
+
+        private synchronized void clear() {
+            interactive.forEach(entry -> entry.command.getAcknowledgement().cancel(false));
+            sync.forEach(entry -> entry.command.getAcknowledgement().cancel(false));
+            interactive.clear();
+            sync.clear();
+        }
+    }
+}
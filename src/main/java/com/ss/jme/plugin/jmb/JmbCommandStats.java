@@ -0,0 +1,165 @@
+package com.ss.jme.plugin.jmb;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The counters of sent commands per command type.
+ *
+ * @author JavaSaBr
+ */
+public class JmbCommandStats {
+
+    /**
+     * The counters of a command type.
+     */
+    public static class Counter {
+
+        /**
+         * The count of sent commands.
+         */
+        @NotNull
+        private final LongAdder count = new LongAdder();
+
+        /**
+         * The size in bytes of sent commands before compression.
+         */
+        @NotNull
+        private final LongAdder bytes = new LongAdder();
+
+        /**
+         * The count of commands which were tried to compress.
+         */
+        @NotNull
+        private final LongAdder compressed = new LongAdder();
+
+        /**
+         * The size in bytes of commands which were tried to compress.
+         */
+        @NotNull
+        private final LongAdder compressedInput = new LongAdder();
+
+        /**
+         * The size in bytes of the compression result or of the original data if compression didn't help.
+         */
+        @NotNull
+        private final LongAdder compressedOutput = new LongAdder();
+
+        /**
+         * The time in ns spent to compress commands.
+         */
+        @NotNull
+        private final LongAdder compressionTime = new LongAdder();
+
+        /**
+         * Gets the count of sent commands.
+         *
+         * @return the count of sent commands.
+         */
+        public long getCount() {
+            return count.sum();
+        }
+
+        /**
+         * Gets the size in bytes of sent commands before compression.
+         *
+         * @return the size in bytes.
+         */
+        public long getBytes() {
+            return bytes.sum();
+        }
+
+        /**
+         * Gets the count of commands which were tried to compress.
+         *
+         * @return the count of compressed commands.
+         */
+        public long getCompressedCount() {
+            return compressed.sum();
+        }
+
+        /**
+         * Gets the ratio of compressed size to original size of commands which were tried to compress.
+         *
+         * @return the compression ratio or 1 if nothing was compressed.
+         */
+        public double getCompressionRatio() {
+            long input = compressedInput.sum();
+            return input == 0 ? 1D : compressedOutput.sum() / (double) input;
+        }
+
+        /**
+         * Gets the time in ms spent to compress commands.
+         *
+         * @return the time in ms.
+         */
+        public long getCompressionTime() {
+            return TimeUnit.NANOSECONDS.toMillis(compressionTime.sum());
+        }
+
+        @Override
+        public String toString() {
+            return "count=" + getCount() + ", bytes=" + getBytes() + ", compressed=" + getCompressedCount() +
+                    ", ratio=" + String.format("%.2f", getCompressionRatio()) +
+                    ", compressionTime=" + getCompressionTime() + " ms";
+        }
+    }
+
+    /**
+     * The counters by command types.
+     */
+    @NotNull
+    private final ConcurrentMap<String, Counter> counters = new ConcurrentHashMap<>();
+
+    /**
+     * Registers the sent command.
+     *
+     * @param type the command type.
+     * @param size the size in bytes of the command before compression.
+     */
+    void onWritten(@NotNull String type, int size) {
+        Counter counter = getCounter(type);
+        counter.count.increment();
+        counter.bytes.add(size);
+    }
+
+    /**
+     * Registers the attempt to compress a command.
+     *
+     * @param type   the command type.
+     * @param input  the original size in bytes.
+     * @param output the compressed size in bytes or the original size if compression didn't help.
+     * @param time   the time in ns spent to compress.
+     */
+    void onCompressed(@NotNull String type, int input, int output, long time) {
+        Counter counter = getCounter(type);
+        counter.compressed.increment();
+        counter.compressedInput.add(input);
+        counter.compressedOutput.add(output);
+        counter.compressionTime.add(time);
+    }
+
+    /**
+     * Gets the counters by command types.
+     *
+     * @return the counters.
+     */
+    public @NotNull Map<String, Counter> getCounters() {
+        return Collections.unmodifiableMap(counters);
+    }
+
+    private @NotNull Counter getCounter(@NotNull String type) {
+        return counters.computeIfAbsent(type, key -> new Counter());
+    }
+
+    @Override
+    public String toString() {
+        return counters.toString();
+    }
+}
@@ -0,0 +1,298 @@
+package com.ss.jme.plugin.jmb;
+
+import com.intellij.openapi.diagnostic.Logger;
+import com.ss.jme.plugin.JmePluginComponent;
+import com.ss.jme.plugin.jmb.command.client.ChunkClientCommand;
+import com.ss.jme.plugin.jmb.command.client.ClientCommand;
+import com.ss.jme.plugin.jmb.command.client.CompressedClientCommand;
+import com.ss.rlib.common.network.client.server.Server;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.Deflater;
+
+/**
+ * The writer to send commands to jMB which compresses large commands and splits commands
+ * larger than a network buffer to chunks.
+ *
+ * @author JavaSaBr
+ */
+class JmbCommandWriter {
+
+    @NotNull
+    private static final Logger LOG = Logger.getInstance("#com.ss.jme.plugin.jmb.JmbCommandWriter");
+
+    /**
+     * The reserved space in a network buffer for headers of a packet.
+     */
+    private static final int HEADER_RESERVE = 64;
+
+    /**
+     * The size of a step of compressing data.
+     */
+    private static final int COMPRESS_STEP = 64 * 1024;
+
+    /**
+     * The pool of buffers to write commands.
+     */
+    @NotNull
+    private final JmbBufferPool bufferPool;
+
+    /**
+     * The generator of ids of transfers.
+     */
+    @NotNull
+    private final AtomicInteger transferIds;
+
+    /**
+     * The counters of sent commands.
+     */
+    @NotNull
+    private final JmbCommandStats stats;
+
+    /**
+     * The reusable buffer of not compressed data.
+     */
+    @NotNull
+    private final byte[] compressInput;
+
+    /**
+     * The reusable buffer of compressed data.
+     */
+    @NotNull
+    private final byte[] compressOutput;
+
+    /**
+     * The max size of data of a command which can be sent by one packet.
+     */
+    private final int maxPacketSize;
+
+    /**
+     * The time in ns of the last writing of a chunk to the network.
+     */
+    private volatile long lastProgressTime;
+
+    JmbCommandWriter(int writeBufferSize) {
+        this.bufferPool = new JmbBufferPool();
+        this.transferIds = new AtomicInteger();
+        this.stats = new JmbCommandStats();
+        this.compressInput = new byte[COMPRESS_STEP];
+        this.compressOutput = new byte[COMPRESS_STEP];
+        this.maxPacketSize = writeBufferSize - HEADER_RESERVE;
+        this.lastProgressTime = System.nanoTime();
+    }
+
+    /**
+     * Gets the time of the last writing of a chunk to the network, while a large transfer is written
+     * the time is updated by each chunk.
+     *
+     * @return the time in ns.
+     */
+    long getLastProgressTime() {
+        return lastProgressTime;
+    }
+
+    /**
+     * Gets the counters of sent commands.
+     *
+     * @return the counters of sent commands.
+     */
+    @NotNull JmbCommandStats getStats() {
+        return stats;
+    }
+
+    /**
+     * Sends the command to the server. The command is compressed if it's larger than the configured threshold
+     * and compression is negotiated, the result is split to chunks if it's too large for one packet
+     * and chunks are negotiated.
+     *
+     * @param server       the server of jMB.
+     * @param command      the command.
+     * @param capabilities the negotiated capabilities of jMB.
+     */
+    void write(@NotNull Server server, @NotNull ClientCommand command, int capabilities) {
+
+        command.setCapabilities(capabilities);
+
+        ByteBuffer buffer = encode(command);
+        int size = buffer.position();
+
+        stats.onWritten(command.getClass().getSimpleName(), size);
+
+        ByteBuffer compressed = compress(command, buffer, capabilities);
+
+        if (compressed != null) {
+            bufferPool.release(buffer);
+            command = new CompressedClientCommand(command.getCommandId(), size, compressed);
+            command.setCapabilities(capabilities);
+            buffer = encode(command);
+            size = buffer.position();
+            bufferPool.release(compressed);
+        }
+
+        if (size <= maxPacketSize || !JmbCapabilities.has(capabilities, JmbCapabilities.CHUNKS)) {
+
+            if (size > maxPacketSize) {
+                LOG.warn("The command " + command.getClass().getSimpleName() + " with the size " + size +
+                        " is too large for one packet, but jMB doesn't support chunks.");
+            }
+
+            ByteBuffer encoded = buffer;
+            ByteBuffer data = encoded.duplicate();
+            data.flip();
+
+            // the buffer is returned to the pool after writing the encoded data to the network
+            command.setEncoded(data, () -> bufferPool.release(encoded));
+            server.sendPacket(command);
+            return;
+        }
+
+        ByteBuffer source = buffer;
+
+        int transferId = transferIds.incrementAndGet();
+        int count = (size + maxPacketSize - 1) / maxPacketSize;
+
+        LOG.debug("send the command ", command.getClass().getSimpleName(), " with the size ", size,
+                " by ", count, " chunks.");
+
+        for (int index = 0, offset = 0; index < count; index++, offset += maxPacketSize) {
+
+            int length = Math.min(maxPacketSize, size - offset);
+            boolean last = index == count - 1;
+
+            // the buffer is returned to the pool only after writing the last chunk to the network
+            ChunkClientCommand chunk = new ChunkClientCommand(transferId, command.getCommandId(), index, count,
+                    source, offset, length, () -> onChunkWritten(source, last));
+            chunk.setCapabilities(capabilities);
+
+            server.sendPacket(chunk);
+        }
+    }
+
+    /**
+     * Handles writing of the chunk to the network.
+     *
+     * @param source the buffer with data of the chunked command.
+     * @param last   true if it was the last chunk.
+     */
+    private void onChunkWritten(@NotNull ByteBuffer source, boolean last) {
+
+        lastProgressTime = System.nanoTime();
+
+        if (last) {
+            bufferPool.release(source);
+        }
+    }
+
+    /**
+     * Compresses encoded data of the command to a pooled buffer if it's large enough and compression
+     * is negotiated. Data is compressed by steps through reusable buffers, so the size of the command
+     * doesn't need extra memory.
+     *
+     * @param command      the command.
+     * @param buffer       the buffer with encoded data of the command.
+     * @param capabilities the negotiated capabilities.
+     * @return the pooled buffer with compressed data or null if the command shouldn't be compressed.
+     */
+    private synchronized @Nullable ByteBuffer compress(
+            @NotNull ClientCommand command,
+            @NotNull ByteBuffer buffer,
+            int capabilities
+    ) {
+
+        int threshold = JmePluginComponent.getInstance()
+                .getState()
+                .getCompressionThreshold() * 1024;
+
+        int size = buffer.position();
+
+        if (!JmbCapabilities.has(capabilities, JmbCapabilities.COMPRESSION) || threshold <= 0 || size < threshold) {
+            return null;
+        }
+
+        long start = System.nanoTime();
+
+        ByteBuffer data = buffer.duplicate();
+        data.flip();
+
+        ByteBuffer result = bufferPool.take(size);
+
+        // the compressed data should be smaller than the original data
+        result.limit(size - 1);
+
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        boolean finished = false;
+        try {
+            while (!finished) {
+
+                if (deflater.needsInput() && data.hasRemaining()) {
+
+                    int length = Math.min(data.remaining(), compressInput.length);
+                    data.get(compressInput, 0, length);
+                    deflater.setInput(compressInput, 0, length);
+
+                    if (!data.hasRemaining()) {
+                        deflater.finish();
+                    }
+                }
+
+                int length = deflater.deflate(compressOutput);
+
+                if (length > result.remaining()) {
+                    break;
+                }
+
+                result.put(compressOutput, 0, length);
+                finished = deflater.finished();
+            }
+        } finally {
+            deflater.end();
+        }
+
+        String type = command.getClass().getSimpleName();
+        long time = System.nanoTime() - start;
+
+        if (!finished) {
+            bufferPool.release(result);
+            stats.onCompressed(type, size, size, time);
+            return null;
+        }
+
+        int length = result.position();
+        result.flip();
+
+        stats.onCompressed(type, size, length, time);
+
+        LOG.debug("compressed the command ", type, " from ", size, " to ", length, " bytes in ",
+                TimeUnit.NANOSECONDS.toMicros(time), " us.");
+
+        return result;
+    }
+
+    /**
+     * Writes data of the command to a pooled buffer which is large enough.
+     *
+     * @param command the command.
+     * @return the buffer with data of the command.
+     */
+    private @NotNull ByteBuffer encode(@NotNull ClientCommand command) {
+
+        for (int size = JmbBufferPool.MIN_SIZE; ; size *= 2) {
+
+            ByteBuffer buffer = bufferPool.take(size);
+            try {
+                command.writeTo(buffer);
+                return buffer;
+            } catch (BufferOverflowException e) {
+                bufferPool.release(buffer);
+                if (size >= JmbBufferPool.MAX_SIZE) {
+                    throw e;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.ss.jme.plugin.jmb;
+
+import com.ss.jme.plugin.util.JmeConstants;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The bounded ring buffer of output lines of jMB, the oldest lines are overwritten by new ones
+ * so the used memory doesn't depend on how much jMB writes.
+ *
+ * @author JavaSaBr
+ */
+public class JmbConsoleBuffer {
+
+    /**
+     * The level of an output line.
+     */
+    public enum Level {
+        DEBUG,
+        INFO,
+        WARNING,
+        ERROR
+    }
+
+    /**
+     * The output line of jMB.
+     */
+    public static class Line {
+
+        /**
+         * The sequence number of the line.
+         */
+        private final long sequence;
+
+        /**
+         * The level of the line.
+         */
+        @NotNull
+        private final Level level;
+
+        /**
+         * The text of the line.
+         */
+        @NotNull
+        private final String text;
+
+        private Line(long sequence, @NotNull Level level, @NotNull String text) {
+            this.sequence = sequence;
+            this.level = level;
+            this.text = text;
+        }
+
+        public long getSequence() {
+            return sequence;
+        }
+
+        public @NotNull Level getLevel() {
+            return level;
+        }
+
+        public @NotNull String getText() {
+            return text;
+        }
+    }
+
+    /**
+     * The lines.
+     */
+    @NotNull
+    private final Line[] lines;
+
+    /**
+     * The sequence number of the last added line.
+     */
+    private long lastSequence;
+
+    JmbConsoleBuffer(int capacity) {
+        this.lines = new Line[capacity];
+    }
+
+    /**
+     * Adds the output line, too long lines are truncated.
+     *
+     * @param level the level of the line.
+     * @param text  the text of the line.
+     */
+    synchronized void add(@NotNull Level level, @NotNull String text) {
+
+        if (text.length() > JmeConstants.JMB_CONSOLE_MAX_LINE_LENGTH) {
+            text = text.substring(0, JmeConstants.JMB_CONSOLE_MAX_LINE_LENGTH) + "...";
+        }
+
+        long sequence = ++lastSequence;
+        lines[(int) (sequence % lines.length)] = new Line(sequence, level, text);
+    }
+
+    /**
+     * Gets the kept lines which were added after the line with the sequence number.
+     *
+     * @param afterSequence the sequence number of the last known line or 0 to get all lines.
+     * @return the new lines from the oldest to the newest.
+     */
+    public synchronized @NotNull List<Line> getLines(long afterSequence) {
+
+        long first = Math.max(afterSequence + 1, lastSequence - lines.length + 1);
+        List<Line> result = new ArrayList<>((int) Math.max(lastSequence - first + 1, 0));
+
+        for (long sequence = first; sequence <= lastSequence; sequence++) {
+            result.add(lines[(int) (sequence % lines.length)]);
+        }
+
+        return result;
+    }
+
+    /**
+     * Gets the sequence number of the last added line.
+     *
+     * @return the sequence number or 0 if no lines were added.
+     */
+    public synchronized long getLastSequence() {
+        return lastSequence;
+    }
+}
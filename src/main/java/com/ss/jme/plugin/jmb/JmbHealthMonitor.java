@@ -0,0 +1,209 @@
+package com.ss.jme.plugin.jmb;
+
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.util.concurrency.AppExecutorUtil;
+import com.ss.jme.plugin.JmePluginComponent;
+import com.ss.jme.plugin.util.JmeConstants;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The monitor which periodically sends heartbeats to the connected jMB, measures round-trip time
+ * and restarts jMB which missed too many heartbeats. A heartbeat is missed only if nothing was received
+ * from jMB and no chunk of a large transfer was written to the network after sending it, so heartbeats
+ * which wait behind a large transfer aren't missed.
+ *
+ * @author JavaSaBr
+ */
+public class JmbHealthMonitor {
+
+    @NotNull
+    private static final Logger LOG = Logger.getInstance("#com.ss.jme.plugin.jmb.JmbHealthMonitor");
+
+    /**
+     * The health of jMB.
+     */
+    public enum Health {
+        /**
+         * jMB isn't running.
+         */
+        STOPPED,
+        /**
+         * jMB is running, but doesn't support heartbeats.
+         */
+        UNKNOWN,
+        /**
+         * jMB answers heartbeats.
+         */
+        HEALTHY,
+        /**
+         * jMB missed too many heartbeats.
+         */
+        UNHEALTHY
+    }
+
+    /**
+     * The instance of jMB.
+     */
+    @NotNull
+    private final JmbInstance instance;
+
+    /**
+     * The send times in ns of not answered heartbeats by their sequence numbers.
+     */
+    @NotNull
+    private final ConcurrentNavigableMap<Long, Long> sentTimes;
+
+    /**
+     * The generator of sequence numbers of heartbeats.
+     */
+    @NotNull
+    private final AtomicLong sequences;
+
+    /**
+     * The current health of jMB.
+     */
+    @NotNull
+    private volatile Health health;
+
+    /**
+     * The time in ns of the last received command from jMB.
+     */
+    private volatile long lastReceivedTime;
+
+    /**
+     * The last round-trip time in ms or -1.
+     */
+    private volatile long roundTripTime;
+
+    /**
+     * The periodic sending of heartbeats.
+     */
+    @NotNull
+    private final ScheduledFuture<?> beats;
+
+    JmbHealthMonitor(@NotNull JmbInstance instance) {
+        this.instance = instance;
+        this.sentTimes = new ConcurrentSkipListMap<>();
+        this.sequences = new AtomicLong();
+        this.health = Health.STOPPED;
+        this.roundTripTime = -1;
+        this.lastReceivedTime = System.nanoTime();
+        this.beats = AppExecutorUtil.getAppScheduledExecutorService().scheduleWithFixedDelay(this::beat,
+                JmeConstants.JMB_HEARTBEAT_INTERVAL, JmeConstants.JMB_HEARTBEAT_INTERVAL, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Gets the current health of jMB.
+     *
+     * @return the current health.
+     */
+    public @NotNull Health getHealth() {
+        return health;
+    }
+
+    /**
+     * Gets the last round-trip time of a heartbeat.
+     *
+     * @return the round-trip time in ms or -1 if it's unknown.
+     */
+    public long getRoundTripTime() {
+        return roundTripTime;
+    }
+
+    /**
+     * Gets the count of heartbeats which weren't answered yet.
+     *
+     * @return the count of missed heartbeats.
+     */
+    public int getMissedBeats() {
+        return sentTimes.size();
+    }
+
+    /**
+     * Checks the answers of previous heartbeats and sends a new heartbeat.
+     */
+    private void beat() {
+
+        if (!instance.isReady()) {
+            reset(Health.STOPPED);
+            return;
+        } else if (!instance.hasCapability(JmbCapabilities.HEARTBEAT)) {
+            reset(Health.UNKNOWN);
+            return;
+        }
+
+        int missLimit = JmePluginComponent.getInstance()
+                .getState()
+                .getHeartbeatMissLimit();
+
+        // jMB or a large transfer made progress after sending these heartbeats
+        long lastProgressTime = Math.max(lastReceivedTime, instance.getLastTransferTime());
+        sentTimes.values().removeIf(sentTime -> sentTime - lastProgressTime <= 0);
+
+        int missed = sentTimes.size();
+
+        if (missed >= missLimit) {
+            LOG.warn("jMB didn't answer " + missed + " heartbeats, restart it.");
+            reset(Health.UNHEALTHY);
+            instance.onUnhealthy();
+            return;
+        }
+
+        long sequence = sequences.incrementAndGet();
+        sentTimes.put(sequence, System.nanoTime());
+        instance.sendHeartbeat(sequence);
+    }
+
+    /**
+     * Handles the answer to the heartbeat.
+     *
+     * @param sequence the sequence number of the heartbeat.
+     */
+    void onHeartbeat(long sequence) {
+
+        Long sentTime = sentTimes.get(sequence);
+
+        if (sentTime == null) {
+            LOG.debug("received an answer to unknown heartbeat: ", sequence);
+            return;
+        }
+
+        // the answer also confirms all previous heartbeats
+        sentTimes.headMap(sequence, true).clear();
+
+        roundTripTime = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - sentTime);
+        health = Health.HEALTHY;
+    }
+
+    /**
+     * Handles receiving of any command from jMB.
+     */
+    void onReceived() {
+        lastReceivedTime = System.nanoTime();
+    }
+
+    /**
+     * Stops sending heartbeats.
+     */
+    void dispose() {
+        beats.cancel(false);
+        reset(Health.STOPPED);
+    }
+
+    /**
+     * Forgets all sent heartbeats.
+     *
+     * @param health the new health.
+     */
+    private void reset(@NotNull Health health) {
+        sentTimes.clear();
+        this.health = health;
+        this.roundTripTime = -1;
+    }
+}
@@ -1,19 +1,32 @@
 package com.ss.jme.plugin.jmb;
 
+import com.intellij.openapi.application.ApplicationManager;
 import com.intellij.openapi.diagnostic.Logger;
 import com.intellij.openapi.module.Module;
+import com.intellij.openapi.progress.ProcessCanceledException;
 import com.intellij.openapi.progress.ProgressIndicator;
 import com.intellij.openapi.progress.ProgressManager;
 import com.intellij.openapi.progress.Task;
 import com.intellij.openapi.project.Project;
-import com.intellij.openapi.ui.Messages;
+import com.intellij.util.concurrency.AppExecutorUtil;
+import com.ss.jme.plugin.JmbLaunchProfile;
 import com.ss.jme.plugin.JmeMessagesBundle;
 import com.ss.jme.plugin.JmeModuleComponent;
+import com.ss.jme.plugin.JmePluginComponent;
 import com.ss.jme.plugin.jmb.command.client.ClientCommand;
-import com.ss.jme.plugin.jmb.command.client.InitClasspathClientCommand;
+import com.ss.jme.plugin.jmb.command.client.HandshakeClientCommand;
+import com.ss.jme.plugin.jmb.command.client.HeartbeatClientCommand;
+import com.ss.jme.plugin.jmb.command.client.OpenFileClientCommand;
+import com.ss.jme.plugin.jmb.command.client.OpenFilesClientCommand;
+import com.ss.jme.plugin.jmb.command.client.ShutdownClientCommand;
+import com.ss.jme.plugin.jmb.command.server.AckServerCommand;
 import com.ss.jme.plugin.jmb.command.server.EmptyServerCommand;
+import com.ss.jme.plugin.jmb.command.server.HandshakeServerCommand;
+import com.ss.jme.plugin.jmb.command.server.HeartbeatServerCommand;
+import com.ss.jme.plugin.jmb.command.server.ResyncServerCommand;
+import com.ss.jme.plugin.jmb.command.server.ServerCommand;
+import com.ss.jme.plugin.util.JmeConstants;
 import com.ss.jme.plugin.util.JmePluginUtils;
-import com.ss.rlib.common.concurrent.util.ConcurrentUtils;
 import com.ss.rlib.common.concurrent.util.ThreadUtils;
 import com.ss.rlib.common.network.NetworkConfig;
 import com.ss.rlib.common.network.NetworkFactory;
@@ -23,36 +36,78 @@ import com.ss.rlib.common.network.client.server.Server;
 import com.ss.rlib.common.network.packet.ReadablePacketRegistry;
 import com.ss.rlib.common.util.FileUtils;
 import com.ss.rlib.common.util.Utils;
+import com.ss.rlib.common.util.array.Array;
+import com.ss.rlib.common.util.array.ArrayCollectors;
 import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
-import javax.swing.*;
 import java.io.IOException;
+import java.net.InetAddress;
 import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.Map;
-import java.util.Optional;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
- * The class to present an instance of jMB.
+ * The class to present the shared instance of jMB. The lifecycle of the jMB process is a state machine
+ * with lock-free transitions and finishing of the process is noticed by the shared process reaper.
  *
  * @author JavaSaBr
  */
-public class JmbInstance extends Thread {
+public class JmbInstance {
 
-    @NotNull
-    private static final Logger LOG = Logger.getInstance("#com.ss.jme.plugin.jmb.JmbInstance");
+    /**
+     * The state of the jMB process.
+     */
+    public enum State {
+        /**
+         * The process is launching.
+         */
+        STARTING,
+        /**
+         * The process is launched and the plugin is connecting to it.
+         */
+        CONNECTING,
+        /**
+         * The process is connected and ready to receive commands.
+         */
+        READY,
+        /**
+         * The process missed too many heartbeats and is being killed to restart it.
+         */
+        UNHEALTHY,
+        /**
+         * There is no running process.
+         */
+        STOPPED
+    }
 
     @NotNull
-    private static final ReadablePacketRegistry PACKET_REGISTRY = ReadablePacketRegistry.of(EmptyServerCommand.class);
+    private static final Logger LOG = Logger.getInstance("#com.ss.jme.plugin.jmb.JmbInstance");
 
     @NotNull
-    private static final ExecutorService EXECUTOR_SERVICE = Executors.newSingleThreadExecutor();
+    private static final ReadablePacketRegistry PACKET_REGISTRY = ReadablePacketRegistry.of(
+            EmptyServerCommand.class, ResyncServerCommand.class, AckServerCommand.class,
+            HandshakeServerCommand.class, HeartbeatServerCommand.class);
 
     @NotNull
     private static final NetworkConfig NETWORK_CONFIG = new NetworkConfig() {
@@ -69,16 +124,16 @@ public class JmbInstance extends Thread {
     };
 
     /**
-     * The module.
+     * The current state of the jMB process.
      */
     @NotNull
-    private final Module module;
+    private final AtomicReference<State> state;
 
     /**
-     * The notificator.
+     * The supervisor of launched processes.
      */
     @NotNull
-    private final Object notificator;
+    private final JmbProcessReaper reaper;
 
     /**
      * The client network.
@@ -101,232 +156,1265 @@ public class JmbInstance extends Thread {
     private volatile Server server;
 
     /**
-     * The last used path to jMB.
+     * The session which classpath is currently loaded in jMB.
      */
     @Nullable
-    @Getter(AccessLevel.PRIVATE)
-    @Setter(AccessLevel.PRIVATE)
-    private volatile Path lastJmbPath;
+    private volatile JmbSession activeSession;
+
+    /**
+     * The session which requested the current launching of jMB or null.
+     */
+    @Nullable
+    private volatile JmbSession launchingSession;
+
+    /**
+     * The progress indicator of the current launching of jMB or null.
+     */
+    @Nullable
+    private volatile ProgressIndicator launchIndicator;
+
+    /**
+     * The dispatcher of commands.
+     */
+    @NotNull
+    private final JmbCommandDispatcher dispatcher;
+
+    /**
+     * The writer of commands.
+     */
+    @NotNull
+    private final JmbCommandWriter writer;
+
+    /**
+     * The last output lines of jMB.
+     */
+    @NotNull
+    private final JmbConsoleBuffer console;
+
+    /**
+     * The tracker of acknowledgements of sent commands.
+     */
+    @NotNull
+    private final JmbAckTracker ackTracker;
+
+    /**
+     * The fingerprint of jMB which failed to launch last time or null.
+     */
+    @Nullable
+    private volatile String failedJmb;
+
+    /**
+     * The capabilities which were offered by the launching jMB.
+     */
+    @NotNull
+    private volatile CompletableFuture<Integer> handshake;
+
+    /**
+     * The negotiated capabilities of the connected jMB.
+     */
+    private volatile int capabilities;
+
+    /**
+     * The lock to write commands and to change the negotiated capabilities between writes.
+     */
+    @NotNull
+    private final Object writeLock;
+
+    /**
+     * The monitor of health of the connected jMB.
+     */
+    @NotNull
+    private final JmbHealthMonitor healthMonitor;
+
+    /**
+     * The sampler of resources of the running jMB.
+     */
+    @NotNull
+    private final JmbResourceSampler resourceSampler;
+
+    /**
+     * The files which were opened in the running jMB by sessions.
+     */
+    @NotNull
+    private final Map<JmbSession, Set<Path>> openedFiles;
+
+    /**
+     * The times of the last automatic restarts of jMB.
+     */
+    @NotNull
+    private final Deque<Long> restartTimes;
+
+    /**
+     * The periodic checking of idle jMB.
+     */
+    @NotNull
+    private final ScheduledFuture<?> idleCheck;
+
+    /**
+     * The flag of stopping jMB by the plugin.
+     */
+    @NotNull
+    private final AtomicBoolean stopping;
+
+    /**
+     * The time of the last sent command.
+     */
+    private volatile long lastActivity;
+
+    /**
+     * The flag of opening a file in the running jMB.
+     */
+    private volatile boolean fileOpened;
 
     /**
-     * The flag of reading to work with jMB.
+     * The flag of disposed instance.
      */
-    private volatile boolean ready;
+    private volatile boolean disposed;
 
     /**
-     * The flag about that last attempt was failed.
+     * The time in ms which the last launched jMB needed to become ready or -1.
      */
-    private volatile boolean wasFailed;
+    private volatile long startupTime;
 
-    public JmbInstance(@NotNull Module module) {
-        this.module = module;
-        this.notificator = new Object();
+    JmbInstance(@NotNull JmbProcessReaper reaper) {
+        this.reaper = reaper;
+        this.state = new AtomicReference<>(State.STOPPED);
+        this.dispatcher = new JmbCommandDispatcher(this::isReady, this::sendCommandImpl);
+        this.writer = new JmbCommandWriter(NETWORK_CONFIG.getWriteBufferSize());
+        this.console = new JmbConsoleBuffer(JmeConstants.JMB_CONSOLE_CAPACITY);
+        this.startupTime = -1;
+        this.ackTracker = new JmbAckTracker(dispatcher);
+        this.handshake = new CompletableFuture<>();
+        this.writeLock = new Object();
+        this.healthMonitor = new JmbHealthMonitor(this);
+        this.resourceSampler = new JmbResourceSampler(this);
+        this.openedFiles = new ConcurrentHashMap<>();
+        this.restartTimes = new ArrayDeque<>();
+        this.stopping = new AtomicBoolean();
+        this.idleCheck = AppExecutorUtil.getAppScheduledExecutorService().scheduleWithFixedDelay(this::checkIdle,
+                JmeConstants.JMB_IDLE_CHECK_INTERVAL, JmeConstants.JMB_IDLE_CHECK_INTERVAL, TimeUnit.MILLISECONDS);
         this.clientNetwork = NetworkFactory.newDefaultAsyncClientNetwork(
                 NETWORK_CONFIG, PACKET_REGISTRY, ConnectHandler.newDefault());
-        start();
     }
 
-    @Override
-    public void run() {
+    /**
+     * Handles finishing of the connected process of jMB and restarts jMB if it crashed or was unhealthy.
+     *
+     * @param process  the finished process.
+     * @param exitCode the exit code of the process.
+     */
+    private void onProcessFinished(@NotNull Process process, int exitCode) {
+
+        if (this.process != process) {
+            return;
+        }
 
-        LOG.debug("Started background checking thread.");
+        JmbSession session = activeSession;
+        Set<Path> files = session == null ? null : openedFiles.get(session);
+        Array<Path> filesToReopen = toArray(files == null ? Collections.emptySet() : files);
 
-        while (true) {
+        this.process = null;
+        activeSession = null;
+        setServer(null);
+        capabilities = JmbCapabilities.NONE;
+        ackTracker.clear();
+        openedFiles.clear();
+        fileOpened = false;
 
-            if (process == null) {
-                synchronized (notificator) {
-                    if (process == null) {
-                        LOG.debug("Waiting for a new jMB instance...");
-                        ConcurrentUtils.waitInSynchronize(notificator);
-                    }
-                }
+        State previous = state.getAndSet(State.STOPPED);
+
+        LOG.info("jMB was finished, sent commands: " + writer.getStats());
+
+        if (session != null) {
+            session.onDeactivated();
+        }
+
+        // jMB which was stopped by the plugin isn't restarted
+        boolean stopped = stopping.getAndSet(false) || disposed;
+        boolean unhealthy = previous == State.UNHEALTHY && !stopped;
+        boolean crashed = exitCode != 0 && !stopped && JmePluginComponent.getInstance()
+                .getState()
+                .isRestartJmbOnCrash();
+
+        if (crashed) {
+            LOG.warn("jMB was finished abnormally with the code " + exitCode + ".");
+        }
+
+        if (session == null) {
+            return;
+        }
+
+        if ((unhealthy || crashed) && canRestart()) {
+            restart(session, filesToReopen);
+            return;
+        }
+
+        // commands queued for the finished jMB shouldn't be sent to the next launched one
+        dispatcher.remove(session);
+    }
+
+    /**
+     * Stops jMB which wasn't used longer than the configured idle timeout. jMB which can't save its state
+     * by the shutdown command is stopped only if it never opened a file, e.g. pre-warmed hidden jMB.
+     */
+    private void checkIdle() {
+
+        int idleTimeout = JmePluginComponent.getInstance()
+                .getState()
+                .getJmbIdleTimeout();
+
+        if (idleTimeout <= 0 || !isReady()) {
+            return;
+        }
+
+        long idleTime = System.currentTimeMillis() - lastActivity;
+
+        if (idleTime < TimeUnit.MINUTES.toMillis(idleTimeout)) {
+            return;
+        }
+
+        // destroying jMB would lose unsaved changes of the opened files
+        if (fileOpened && !hasCapability(JmbCapabilities.SHUTDOWN)) {
+            LOG.debug("jMB has opened files and doesn't support the shutdown command, keep it running.");
+            return;
+        }
+
+        LOG.info("jMB wasn't used for " + TimeUnit.MILLISECONDS.toMinutes(idleTime) + " minutes, stop it.");
+        shutdown();
+    }
+
+    /**
+     * Stops the running jMB gracefully if it's possible or kills it after the shutdown timeout.
+     * Blocks the current thread until the process is finished.
+     */
+    void shutdown() {
+
+        Process process = this.process;
+
+        if (process == null) {
+            return;
+        }
+
+        stopping.set(true);
+
+        Server server = getServer();
+
+        if (server != null && hasCapability(JmbCapabilities.SHUTDOWN)) {
+            synchronized (writeLock) {
+                writer.write(server, new ShutdownClientCommand(), capabilities);
             }
+        } else {
+            process.destroy();
+        }
 
-            LOG.debug("Taken the jMB process: ", process);
-            LOG.debug("Started waiting for finishing of the process: ", process);
-            try {
-                process.waitFor();
-            } catch (InterruptedException e) {
-                LOG.warn(e);
+        try {
+            if (!process.waitFor(JmeConstants.JMB_SHUTDOWN_TIMEOUT, TimeUnit.MILLISECONDS)) {
+                LOG.warn("jMB didn't exit in " + JmeConstants.JMB_SHUTDOWN_TIMEOUT + " ms, kill it.");
+                process.destroyForcibly();
+            }
+        } catch (InterruptedException e) {
+            process.destroyForcibly();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Stops the running jMB and releases all resources of this instance.
+     */
+    void dispose() {
+
+        disposed = true;
+
+        cancelLaunching();
+        idleCheck.cancel(false);
+        healthMonitor.dispose();
+        resourceSampler.dispose();
+        shutdown();
+        ackTracker.dispose();
+        dispatcher.dispose();
+        clientNetwork.shutdown();
+    }
+
+    /**
+     * Checks that jMB wasn't restarted too often, to not restart jMB which crashes right after launching.
+     *
+     * @return true if jMB can be restarted.
+     */
+    private boolean canRestart() {
+
+        long now = System.currentTimeMillis();
+
+        while (!restartTimes.isEmpty() && now - restartTimes.peekFirst() > JmeConstants.JMB_RESTART_WINDOW) {
+            restartTimes.pollFirst();
+        }
+
+        if (restartTimes.size() >= JmeConstants.JMB_MAX_RESTARTS) {
+            LOG.warn("jMB was restarted " + restartTimes.size() + " times in " + JmeConstants.JMB_RESTART_WINDOW +
+                    " ms, it won't be restarted automatically anymore.");
+            return false;
+        }
+
+        restartTimes.addLast(now);
+        return true;
+    }
+
+    /**
+     * Launches jMB again in background with the classpath of the session and reopens the files
+     * which were opened in the finished process.
+     *
+     * @param session the session which was active.
+     * @param files   the files to reopen.
+     */
+    private void restart(@NotNull JmbSession session, @NotNull Array<Path> files) {
+
+        Module module = session.getModule();
+
+        ApplicationManager.getApplication().invokeLater(() -> {
+
+            if (module.isDisposed()) {
+                return;
+            }
+
+            LOG.info("restarting jMB for the module " + module.getName() + " with " + files.size() +
+                    " files to reopen.");
+
+            Path assetFolder = session.getModuleComponent().getAssetFolder();
+
+            // the commands are queued before launching and will be sent after loading the classpath
+            if (assetFolder != null && !files.isEmpty()) {
+                dispatcher.dispatch(session, new OpenFilesClientCommand(assetFolder, files), false);
             }
 
-            process = null;
-            ready = false;
-            setServer(null);
+            startInstance(session, module.getProject(), files.isEmpty());
+        });
+    }
+
+    /**
+     * Remembers files which are opened by the command to reopen them after restarting jMB.
+     *
+     * @param session the session of the command.
+     * @param command the command.
+     */
+    private void rememberOpenedFiles(@NotNull JmbSession session, @NotNull ClientCommand command) {
+
+        Iterable<Path> files;
+
+        if (command instanceof OpenFileClientCommand) {
+            files = Collections.singletonList(((OpenFileClientCommand) command).getFile());
+        } else if (command instanceof OpenFilesClientCommand) {
+            files = ((OpenFilesClientCommand) command).getFiles();
+        } else {
+            return;
+        }
+
+        fileOpened = true;
+
+        Set<Path> opened = openedFiles.computeIfAbsent(session, key -> new LinkedHashSet<>());
+
+        synchronized (opened) {
+            for (Path file : files) {
+                // move the file to the end to keep the last opened files
+                opened.remove(file);
+                opened.add(file);
+            }
+            for (Iterator<Path> iterator = opened.iterator(); opened.size() > JmeConstants.JMB_MAX_REOPENED_FILES; ) {
+                iterator.next();
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * Copies the opened files to an array.
+     *
+     * @param files the opened files.
+     * @return the array of the files.
+     */
+    private static @NotNull Array<Path> toArray(@NotNull Set<Path> files) {
+        synchronized (files) {
+            return files.stream().collect(ArrayCollectors.toArray(Path.class));
+        }
+    }
+
+    /**
+     * Terminates the process of jMB which doesn't answer heartbeats or uses too much memory and launches it again.
+     * The process is killed only if it doesn't exit after terminating during the shutdown timeout, so JVM of jMB
+     * can still finish its exit hooks, e.g. writing of the AppCDS archive.
+     */
+    void onUnhealthy() {
+
+        Process process = this.process;
+
+        if (process == null || !state.compareAndSet(State.READY, State.UNHEALTHY)) {
+            return;
         }
+
+        process.destroy();
+
+        AppExecutorUtil.getAppScheduledExecutorService().schedule(() -> {
+            if (process.isAlive()) {
+                LOG.warn("jMB didn't exit in " + JmeConstants.JMB_SHUTDOWN_TIMEOUT + " ms, kill it.");
+                process.destroyForcibly();
+            }
+        }, JmeConstants.JMB_SHUTDOWN_TIMEOUT, TimeUnit.MILLISECONDS);
     }
 
     /**
-     * Starts an instance of jMB.
+     * Starts an instance of jMB in a cancellable background task if it isn't running or launching.
+     * All queued commands are sent when jMB is ready or dropped if launching was failed or cancelled.
      *
-     * @param project the project which request starting an instance.
+     * @param session the session which requests starting an instance.
+     * @param project the project which requests starting an instance.
+     * @param hidden  true if jMB should be hidden until the first opened file.
      */
-    private void startInstance(@NotNull Project project) {
+    private void startInstance(@NotNull JmbSession session, @NotNull Project project, boolean hidden) {
 
-        if (ready) {
+        if (!state.compareAndSet(State.STOPPED, State.STARTING)) {
             return;
         }
 
-        String title = JmeMessagesBundle.message("jmb.instance.launch.title");
-        ProgressManager.getInstance().run(new Task.Modal(project, title, false) {
+        String title = JmeMessagesBundle.message(hidden ? "jmb.instance.prewarm.title" : "jmb.instance.launch.title");
+        ProgressManager.getInstance().run(new Task.Backgroundable(project, title, true) {
+
             @Override
             public void run(@NotNull ProgressIndicator indicator) {
                 indicator.setIndeterminate(true);
-                startInstanceImpl();
+                launchingSession = session;
+                launchIndicator = indicator;
+                try {
+                    startInstanceImpl(session, hidden, indicator);
+                } finally {
+                    launchIndicator = null;
+                    launchingSession = null;
+                    onLaunchFinished();
+                }
             }
         });
     }
 
     /**
-     * Executes starting jMB.
+     * Sends queued commands to the launched jMB or drops them if launching was failed or cancelled.
      */
-    private synchronized void startInstanceImpl() {
+    private void onLaunchFinished() {
 
-        if (ready) {
+        if (isReady()) {
+            dispatcher.schedule();
             return;
         }
 
+        LOG.debug("jMB wasn't launched, drop queued commands.");
+        dispatcher.clear();
+
+        if (!state.compareAndSet(State.STARTING, State.STOPPED)) {
+            state.compareAndSet(State.CONNECTING, State.STOPPED);
+        }
+    }
+
+    /**
+     * Cancels the current launching of jMB if it's in progress.
+     */
+    private void cancelLaunching() {
+
+        ProgressIndicator indicator = launchIndicator;
+
+        if (indicator != null) {
+            indicator.cancel();
+        }
+    }
+
+    /**
+     * Starts an instance of jMB in background without showing it until the first opened file.
+     *
+     * @param session the session which requests starting an instance.
+     * @param project the project which requests starting an instance.
+     */
+    void prewarm(@NotNull JmbSession session, @NotNull Project project) {
+
         Path pathToJmb = JmePluginUtils.getPathToJmb();
-        if (wasFailed && pathToJmb != null && pathToJmb.equals(getLastJmbPath())) {
-            SwingUtilities.invokeLater(() -> {
-                String message = JmeMessagesBundle.message("jme.instance.error.wasFailed.message");
-                String title = JmeMessagesBundle.message("jme.instance.error.wasFailed.title");
-                Messages.showWarningDialog(message, title);
-            });
+
+        if (state.get() != State.STOPPED || pathToJmb == null || isFailed(pathToJmb)) {
             return;
         }
 
-        setLastJmbPath(pathToJmb);
+        startInstance(session, project, true);
+    }
+
+    /**
+     * Executes starting jMB, it's called only in the state {@link State#STARTING}.
+     *
+     * @param session the session which requests starting an instance.
+     * @param hidden    true if jMB should be hidden until the first opened file.
+     * @param indicator the progress indicator to cancel launching.
+     */
+    private void startInstanceImpl(
+            @NotNull JmbSession session,
+            boolean hidden,
+            @NotNull ProgressIndicator indicator
+    ) {
+
+        Path pathToJmb = JmePluginUtils.getPathToJmb();
 
         if (pathToJmb == null) {
-            SwingUtilities.invokeLater(() -> {
-                String message = JmeMessagesBundle.message("jme.instance.error.noPath.message");
-                String title = JmeMessagesBundle.message("jme.instance.error.noPath.title");
-                Messages.showWarningDialog(message, title);
-            });
-            wasFailed = true;
+            String message = JmeMessagesBundle.message("jme.instance.error.noPath.message");
+            String title = JmeMessagesBundle.message("jme.instance.error.noPath.title");
+            JmePluginUtils.showWarning(hidden, message, title);
+            return;
+        }
+
+        if (isFailed(pathToJmb)) {
+            String message = JmeMessagesBundle.message("jme.instance.error.wasFailed.message");
+            String title = JmeMessagesBundle.message("jme.instance.error.wasFailed.title");
+            JmePluginUtils.showWarning(hidden, message, title);
             return;
         }
 
-        if (!JmePluginUtils.checkJmb(pathToJmb)) {
+        if (!JmePluginUtils.checkJmb(pathToJmb, hidden)) {
+            markFailed(pathToJmb);
             return;
         }
 
         LOG.debug("starting a new jMB instance...");
 
-        int freePort = Utils.getFreePort(5000);
+        int freePort = findFreePort();
+        Path portFile = createPortFile();
 
-        LOG.debug("free port: ", freePort);
+        LOG.debug("free port: ", freePort, ", port file: ", portFile);
 
-        JmeModuleComponent moduleComponent = module.getComponent(JmeModuleComponent.class);
+        JmeModuleComponent moduleComponent = session.getModuleComponent();
         Path assetFolder = moduleComponent.getAssetFolder();
 
         LOG.debug("asset folder: ", assetFolder);
 
         ProcessBuilder builder;
+        JmbLaunchCommand launchCommand;
 
         if ("jar".equals(FileUtils.getExtension(pathToJmb))) {
             Path folder = pathToJmb.getParent();
-            builder = new ProcessBuilder("java", "-jar", pathToJmb.toString());
+            JmbLaunchProfile profile = JmePluginComponent.getInstance()
+                    .getState()
+                    .getLaunchProfile();
+            launchCommand = JmbLaunchCommand.build(pathToJmb, profile);
+            builder = new ProcessBuilder(launchCommand.getCommand());
             builder.directory(folder.toFile());
         } else {
+            launchCommand = null;
             builder = new ProcessBuilder(pathToJmb.toString());
         }
 
         Map<String, String> env = builder.environment();
         env.put("Server.api.port", String.valueOf(freePort));
 
+        if (portFile != null) {
+            env.put("Server.api.portFile", portFile.toString());
+        }
+
         if (assetFolder != null) {
             env.put("Editor.assetFolder", assetFolder.toString());
         }
 
-        builder.inheritIO();
-
+        if (hidden) {
+            env.put("Editor.hidden", "true");
+        }
 
         LOG.debug("commands: ", builder.command());
         LOG.debug("env: ", env);
 
+        long startTime = System.currentTimeMillis();
+
         Process process;
         try {
             process = builder.start();
         } catch (IOException e) {
             LOG.warn(e);
-            SwingUtilities.invokeLater(() -> {
-                String message = JmeMessagesBundle.message("jme.instance.error.cantExecute.message", pathToJmb.toString());
-                String title = JmeMessagesBundle.message("jme.instance.error.cantExecute.title");
-                Messages.showWarningDialog(message, title);
-            });
-            wasFailed = true;
+            deletePortFile(portFile);
+            String message = JmeMessagesBundle.message("jme.instance.error.cantExecute.message", pathToJmb.toString());
+            String title = JmeMessagesBundle.message("jme.instance.error.cantExecute.title");
+            JmePluginUtils.showWarning(hidden, message, title);
+            markFailed(pathToJmb);
             return;
         }
 
+        console.add(JmbConsoleBuffer.Level.INFO, "--- " + String.join(" ", builder.command()) + " ---");
+
+        JmbOutputReader output = new JmbOutputReader(process, console);
+
+        state.set(State.CONNECTING);
+
         Server server = getServer();
         if (server != null) {
             LOG.debug("destroy the previous server: ", server);
             server.destroy();
         }
 
-        ThreadUtils.sleep(2000);
-
         LOG.debug("connecting to the launched instance...");
 
-        while (true) {
-            try {
-                LOG.debug("Trying to connect...");
-                server = clientNetwork.connect(new InetSocketAddress("localhost", freePort));
-                server.sendPacket(new InitClasspathClientCommand(moduleComponent.getCompileOutput(), moduleComponent.getLibraries()));
-                setServer(server);
-                break;
-            } catch (RuntimeException e) {
-                LOG.warn(e);
-                LOG.debug("Waiting for 1 sec.");
-                ThreadUtils.sleep(1000);
-            }
+        CompletableFuture<Integer> offered = new CompletableFuture<>();
+        handshake = offered;
+
+        try {
+            server = connect(process, freePort, portFile, output.getReadiness(), indicator);
+        } catch (ProcessCanceledException e) {
+            LOG.debug("launching of jMB was cancelled.");
+            process.destroy();
+            throw e;
+        } finally {
+            deletePortFile(portFile);
+        }
+
+        if (server == null) {
+            process.destroy();
+            String message = JmeMessagesBundle.message("jme.instance.error.notResponding.message",
+                    JmeConstants.JMB_CONNECT_TIMEOUT / 1000);
+            String title = JmeMessagesBundle.message("jme.instance.error.notResponding.title");
+            JmePluginUtils.showWarning(hidden, message, title);
+            markFailed(pathToJmb);
+            return;
+        }
+
+        // the instance was disposed or all sessions were detached while connecting
+        if (disposed || indicator.isCanceled()) {
+            LOG.debug("launching of jMB was cancelled after connecting.");
+            server.destroy();
+            process.destroy();
+            return;
         }
 
+        // jMB is used without optional features until its handshake is answered
+        this.capabilities = JmbCapabilities.NONE;
+
+        write(server, session, session.createInitClasspathCommand(), false);
+        setServer(server);
+
         LOG.debug("Connected to the instance.");
 
         this.process = process;
-        this.wasFailed = false;
-        this.ready = true;
+        this.activeSession = session;
+        this.failedJmb = null;
+
+        state.set(State.READY);
+        reaper.watch(process, exitCode -> {
+
+            if (launchCommand != null) {
+                launchCommand.onFinished(exitCode);
+            }
 
-        LOG.debug("Notify background thread.");
+            onProcessFinished(process, exitCode);
+        });
+
+        Server connected = server;
+        offered.thenAccept(offeredCapabilities -> negotiate(connected, offered, offeredCapabilities));
 
-        ConcurrentUtils.notifyAll(notificator);
+        this.startupTime = System.currentTimeMillis() - startTime;
 
-        LOG.debug("jMB was started successfully.");
+        LOG.info("jMB was started in " + startupTime + " ms.");
     }
 
     /**
-     * Gets the server of jMB.
+     * Remembers jMB which failed to launch, so it isn't launched again until it's changed.
      *
-     * @return the server of jMB.
+     * @param pathToJmb the path to jMB.
      */
-    private @NotNull Optional<Server> getServerOpt() {
-        return Optional.ofNullable(server);
+    private void markFailed(@NotNull Path pathToJmb) {
+        this.failedJmb = getFingerprint(pathToJmb);
     }
 
     /**
-     * Sends the command to jMB.
+     * Checks that jMB by the path failed to launch and wasn't changed after that.
      *
-     * @param command the command.
-     * @param project the project.
+     * @param pathToJmb the path to jMB.
+     * @return true if jMB by the path failed to launch.
      */
-    public void sendCommand(@NotNull ClientCommand command, @NotNull Project project) {
-        EXECUTOR_SERVICE.execute(() -> {
-            startInstance(project);
-            getServerOpt().ifPresent(it -> it.sendPacket(command));
-        });
+    private boolean isFailed(@NotNull Path pathToJmb) {
+        return getFingerprint(pathToJmb).equals(failedJmb);
     }
 
     /**
-     * Sends the command to jMB if we already have running instance.
+     * Gets the fingerprint of jMB by the path.
      *
-     * @param command the command.
+     * @param pathToJmb the path to jMB.
+     * @return the fingerprint.
      */
-    public void sendCommandIfRunning(@NotNull ClientCommand command) {
-        if (!ready) return;
-        EXECUTOR_SERVICE.execute(() ->
-                getServerOpt().ifPresent(it -> it.sendPacket(command)));
+    private static @NotNull String getFingerprint(@NotNull Path pathToJmb) {
+        try {
+            return pathToJmb + ":" + Files.size(pathToJmb) + ":" + Files.getLastModifiedTime(pathToJmb).toMillis();
+        } catch (IOException e) {
+            return pathToJmb.toString();
+        }
+    }
+
+    /**
+     * Finds a free port on the loopback interface.
+     *
+     * @return the free port.
+     */
+    private static int findFreePort() {
+        try (ServerSocket socket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress())) {
+            return socket.getLocalPort();
+        } catch (IOException e) {
+            LOG.warn(e);
+            return Utils.getFreePort(5000);
+        }
+    }
+
+    /**
+     * Creates an empty file for jMB to write the port which it actually listens to.
+     *
+     * @return the file or null if it can't be created.
+     */
+    private static @Nullable Path createPortFile() {
+        try {
+            return Files.createTempFile("jmb-", ".port");
+        } catch (IOException e) {
+            LOG.warn(e);
+            return null;
+        }
+    }
+
+    /**
+     * Deletes the file with the port of jMB.
+     *
+     * @param portFile the file or null.
+     */
+    private static void deletePortFile(@Nullable Path portFile) {
+
+        if (portFile == null) {
+            return;
+        }
+
+        try {
+            Files.deleteIfExists(portFile);
+        } catch (IOException e) {
+            LOG.warn(e);
+        }
+    }
+
+    /**
+     * Reads the port which jMB announced in the port file.
+     *
+     * @param portFile the port file or null.
+     * @param fallback the port which was passed to jMB.
+     * @return the announced port or the fallback port if jMB didn't announce a port yet.
+     */
+    private static int readAnnouncedPort(@Nullable Path portFile, int fallback) {
+
+        if (portFile == null) {
+            return fallback;
+        }
+
+        try {
+
+            String content = new String(Files.readAllBytes(portFile), StandardCharsets.UTF_8).trim();
+
+            if (!content.isEmpty()) {
+                return Integer.parseInt(content);
+            }
+
+        } catch (IOException | NumberFormatException e) {
+            LOG.debug(e);
+        }
+
+        return fallback;
+    }
+
+    /**
+     * Connects to the launched process of jMB as soon as it starts accepting connections.
+     * jMB which supports the port file listens to an ephemeral port and writes it to the file,
+     * older jMB listens to the passed port. A delay between attempts is interrupted when jMB prints
+     * the readiness marker.
+     *
+     * @param process   the process of jMB.
+     * @param port      the API port of jMB.
+     * @param portFile  the file where jMB announces its port or null.
+     * @param readiness the future of the readiness marker of jMB.
+     * @param indicator the progress indicator to cancel connecting.
+     * @return the server of jMB or null if it didn't accept a connection in time.
+     */
+    private @Nullable Server connect(
+            @NotNull Process process,
+            int port,
+            @Nullable Path portFile,
+            @NotNull CompletableFuture<Void> readiness,
+            @NotNull ProgressIndicator indicator
+    ) {
+
+        InetAddress loopback = InetAddress.getLoopbackAddress();
+
+        long deadline = System.currentTimeMillis() + JmeConstants.JMB_CONNECT_TIMEOUT;
+        long delay = JmeConstants.JMB_CONNECT_MIN_DELAY;
+
+        while (process.isAlive()) {
+
+            indicator.checkCanceled();
+
+            InetSocketAddress address = new InetSocketAddress(loopback, readAnnouncedPort(portFile, port));
+
+            try {
+                LOG.debug("Trying to connect to ", address);
+                return clientNetwork.connect(address);
+            } catch (RuntimeException e) {
+                LOG.debug(e);
+            }
+
+            long remaining = deadline - System.currentTimeMillis();
+
+            if (remaining <= 0) {
+                LOG.warn("jMB didn't accept a connection in " + JmeConstants.JMB_CONNECT_TIMEOUT + " ms.");
+                return null;
+            }
+
+            LOG.debug("Waiting for ", delay, " ms.");
+            if (readiness.isDone()) {
+                ThreadUtils.sleep(Math.min(delay, remaining));
+            } else {
+                awaitReadiness(readiness, Math.min(delay, remaining));
+            }
+
+            delay = Math.min(delay * 2, JmeConstants.JMB_CONNECT_MAX_DELAY);
+        }
+
+        LOG.warn("The process of jMB was finished with the code " + process.exitValue() + " before connecting.");
+        return null;
+    }
+
+    /**
+     * Waits for the readiness marker of jMB no longer than the timeout.
+     *
+     * @param readiness the future of the readiness marker.
+     * @param timeout   the timeout in ms.
+     */
+    private static void awaitReadiness(@NotNull CompletableFuture<Void> readiness, long timeout) {
+        try {
+            readiness.get(timeout, TimeUnit.MILLISECONDS);
+            LOG.debug("jMB reported readiness.");
+        } catch (TimeoutException e) {
+            // jMB isn't ready yet
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            LOG.debug(e);
+        }
+    }
+
+    /**
+     * Answers the handshake of the connected jMB with the capabilities which both sides support
+     * and starts using them. jMB without the handshake is used without optional features.
+     *
+     * @param server              the server of jMB.
+     * @param offered             the handshake of the launch of jMB.
+     * @param offeredCapabilities the capabilities which jMB supports.
+     */
+    private void negotiate(
+            @NotNull Server server,
+            @NotNull CompletableFuture<Integer> offered,
+            int offeredCapabilities
+    ) {
+
+        int negotiated = offeredCapabilities & JmbCapabilities.SUPPORTED;
+
+        synchronized (writeLock) {
+
+            // jMB was restarted after this handshake
+            if (handshake != offered || getServer() != server) {
+                return;
+            }
+
+            server.sendPacket(new HandshakeClientCommand(JmeConstants.JMB_API_VERSION, negotiated));
+            this.capabilities = negotiated;
+        }
+
+        LOG.info("negotiated capabilities of jMB: " + JmbCapabilities.toString(negotiated));
+    }
+
+    /**
+     * Handles the command received from the connected jMB.
+     *
+     * @param command the command.
+     */
+    void onServerCommand(@NotNull ServerCommand command) {
+        healthMonitor.onReceived();
+        command.handle(this);
+    }
+
+    /**
+     * Gets the time of the last progress of writing a large transfer to the network.
+     *
+     * @return the time in ns.
+     */
+    long getLastTransferTime() {
+        return writer.getLastProgressTime();
+    }
+
+    /**
+     * Handles the handshake of the connected jMB.
+     *
+     * @param apiVersion   the version of the protocol of jMB.
+     * @param capabilities the capabilities which jMB supports.
+     */
+    public void onHandshake(int apiVersion, int capabilities) {
+        LOG.debug("jMB offered the protocol version ", apiVersion, " with capabilities ",
+                JmbCapabilities.toString(capabilities));
+        handshake.complete(capabilities);
+    }
+
+    /**
+     * Sends the heartbeat to the connected jMB bypassing the command queue. The heartbeat is written
+     * under the write lock, so it's never written between chunks of a large command.
+     *
+     * @param sequence the sequence number of the heartbeat.
+     */
+    void sendHeartbeat(long sequence) {
+
+        Server server = getServer();
+
+        if (server == null) {
+            return;
+        }
+
+        synchronized (writeLock) {
+            writer.write(server, new HeartbeatClientCommand(sequence), capabilities);
+        }
+    }
+
+    /**
+     * Handles the answer of jMB to the heartbeat.
+     *
+     * @param sequence the sequence number of the heartbeat.
+     */
+    public void onHeartbeat(long sequence) {
+        healthMonitor.onHeartbeat(sequence);
+    }
+
+    /**
+     * Gets the monitor of health of the connected jMB.
+     *
+     * @return the monitor of health.
+     */
+    public @NotNull JmbHealthMonitor getHealthMonitor() {
+        return healthMonitor;
+    }
+
+    /**
+     * Gets the sampler of resources of the running jMB.
+     *
+     * @return the sampler of resources.
+     */
+    public @NotNull JmbResourceSampler getResourceSampler() {
+        return resourceSampler;
+    }
+
+    /**
+     * Gets the process of the running jMB.
+     *
+     * @return the process or null if jMB isn't running.
+     */
+    @Nullable Process getProcess() {
+        return process;
+    }
+
+    /**
+     * Gets the negotiated capabilities of the connected jMB.
+     *
+     * @return the negotiated capabilities.
+     */
+    public int getCapabilities() {
+        return capabilities;
+    }
+
+    /**
+     * Gets the current state of the jMB process.
+     *
+     * @return the current state.
+     */
+    public @NotNull State getState() {
+        return state.get();
+    }
+
+    /**
+     * Checks that jMB is running and ready to receive commands.
+     *
+     * @return true if jMB is ready.
+     */
+    boolean isReady() {
+        return state.get() == State.READY;
+    }
+
+    /**
+     * Gets the time which the last launched jMB needed to become ready.
+     *
+     * @return the time in ms or -1 if jMB wasn't launched yet.
+     */
+    public long getStartupTime() {
+        return startupTime;
+    }
+
+    /**
+     * Gets the last output lines of jMB.
+     *
+     * @return the buffer of output lines.
+     */
+    public @NotNull JmbConsoleBuffer getConsole() {
+        return console;
+    }
+
+    /**
+     * Gets the counters of commands which were sent to jMB.
+     *
+     * @return the counters of sent commands.
+     */
+    public @NotNull JmbCommandStats getCommandStats() {
+        return writer.getStats();
+    }
+
+    /**
+     * Loads the classpath of the session to jMB if the session isn't active yet.
+     *
+     * @param server  the server of jMB.
+     * @param session the session.
+     */
+    private void activateSession(@NotNull Server server, @NotNull JmbSession session) {
+
+        JmbSession previous = activeSession;
+
+        if (previous == session) {
+            return;
+        }
+
+        LOG.debug("activate the session of the module: ", session.getModule());
+
+        if (previous != null) {
+            previous.onDeactivated();
+        }
+
+        write(server, session, session.createInitClasspathCommand(), false);
+        activeSession = session;
+    }
+
+    /**
+     * Writes the command of the session to jMB and starts waiting for its acknowledgement if
+     * acknowledgements are negotiated, otherwise the acknowledgement is completed as unconfirmed.
+     *
+     * @param server       the server of jMB.
+     * @param session      the session.
+     * @param command      the command.
+     * @param onlyIfActive true if the command should be resent only if the session is active.
+     */
+    private void write(
+            @NotNull Server server,
+            @NotNull JmbSession session,
+            @NotNull ClientCommand command,
+            boolean onlyIfActive
+    ) {
+        lastActivity = System.currentTimeMillis();
+        rememberOpenedFiles(session, command);
+
+        boolean acknowledged;
+
+        synchronized (writeLock) {
+
+            int capabilities = this.capabilities;
+
+            boolean batchOpen = JmbCapabilities.has(capabilities, JmbCapabilities.BATCH_OPEN);
+
+            if (command instanceof OpenFilesClientCommand && !batchOpen) {
+                writeSeparately(server, session, (OpenFilesClientCommand) command, onlyIfActive);
+                return;
+            }
+
+            session.onWrite(command);
+
+            acknowledged = JmbCapabilities.has(capabilities, JmbCapabilities.ACKNOWLEDGEMENTS);
+
+            if (acknowledged) {
+                ackTracker.onSend(session, command, onlyIfActive);
+            }
+
+            writer.write(server, command, capabilities);
+            session.onWritten(command);
+        }
+
+        if (!acknowledged) {
+            command.getAcknowledgement()
+                    .complete(new JmbAcknowledgement(0, JmbAcknowledgement.STATUS_UNCONFIRMED, -1, 0));
+        }
+    }
+
+    /**
+     * Writes the commands to open each file of the batch separately for jMB which doesn't support batches,
+     * the batch is acknowledged when all files are acknowledged.
+     *
+     * @param server       the server of jMB.
+     * @param session      the session.
+     * @param batch        the batch command.
+     * @param onlyIfActive true if the commands should be resent only if the session is active.
+     */
+    private void writeSeparately(
+            @NotNull Server server,
+            @NotNull JmbSession session,
+            @NotNull OpenFilesClientCommand batch,
+            boolean onlyIfActive
+    ) {
+
+        Array<OpenFileClientCommand> commands = batch.toSingleCommands();
+        CompletableFuture<?>[] acknowledgements = new CompletableFuture<?>[commands.size()];
+
+        for (int i = 0; i < commands.size(); i++) {
+            OpenFileClientCommand command = commands.get(i);
+            acknowledgements[i] = command.getAcknowledgement();
+            write(server, session, command, onlyIfActive);
+        }
+
+        CompletableFuture<JmbAcknowledgement> result = batch.getAcknowledgement();
+        CompletableFuture.allOf(acknowledgements).whenComplete((ignored, error) -> {
+            if (error != null) {
+                result.completeExceptionally(error);
+            } else if (commands.isEmpty()) {
+                result.complete(new JmbAcknowledgement(0, JmbAcknowledgement.STATUS_UNCONFIRMED, -1, 0));
+            } else {
+                result.complete(commands.get(commands.size() - 1).getAcknowledgement().join());
+            }
+        });
+    }
+
+    /**
+     * Checks that jMB is ready and the session is active.
+     *
+     * @param session the session.
+     * @return true if the classpath of the session is loaded in running jMB.
+     */
+    boolean isActive(@NotNull JmbSession session) {
+        return isReady() && activeSession == session;
+    }
+
+    /**
+     * Sends full state of the active session to jMB because jMB missed some update.
+     *
+     * @param lastSequence the last build sequence number which was applied by jMB.
+     */
+    public void resyncActiveSession(int lastSequence) {
+
+        JmbSession session = activeSession;
+        if (session == null) {
+            return;
+        }
+
+        LOG.debug("jMB requested full synchronization after the build ", lastSequence,
+                " of the module ", session.getModule());
+
+        session.resync();
+    }
+
+    /**
+     * Completes waiting for the acknowledgement of the command.
+     *
+     * @param requestId      the request id of the command.
+     * @param status         the status of processing.
+     * @param processingTime the time in ms which jMB spent to process the command.
+     */
+    public void onAcknowledged(long requestId, int status, long processingTime) {
+        ackTracker.onAcknowledged(requestId, status, processingTime);
+    }
+
+    /**
+     * Notifies about that the session was detached from this instance, jMB is stopped if it has
+     * the classpath of the session or no sessions remain.
+     *
+     * @param session the session.
+     * @param last    true if it was the last attached session.
+     */
+    void onSessionDetached(@NotNull JmbSession session, boolean last) {
+
+        dispatcher.remove(session);
+        ackTracker.remove(session);
+        openedFiles.remove(session);
+
+        boolean wasActive = activeSession == session;
+
+        if (wasActive) {
+            activeSession = null;
+            session.onDeactivated();
+        }
+
+        // jMB is launching with classes of the detached module or isn't needed anymore
+        if (last || launchingSession == session) {
+            cancelLaunching();
+        }
+
+        // jMB holds classes of the detached module or isn't needed anymore
+        if ((wasActive || last) && process != null) {
+            LOG.info("stop jMB after detaching the module " + session.getModule().getName());
+            AppExecutorUtil.getAppExecutorService().execute(this::shutdown);
+        }
+    }
+
+    /**
+     * Sends the command of the session to jMB, if jMB isn't ready yet the command will be sent after launching.
+     *
+     * @param session the session.
+     * @param command the command.
+     * @param project the project.
+     * @return the future of the acknowledgement of the command.
+     */
+    @NotNull CompletableFuture<JmbAcknowledgement> sendCommand(
+            @NotNull JmbSession session,
+            @NotNull ClientCommand command,
+            @NotNull Project project
+    ) {
+
+        if (dispatcher.dispatch(session, command, false) && !isReady()) {
+            startInstance(session, project, false);
+        }
+
+        return command.getAcknowledgement();
+    }
+
+    /**
+     * Sends the command of the session to the connected jMB.
+     *
+     * @param session      the session.
+     * @param command      the command.
+     * @param onlyIfActive true if the command should be sent only if the session is active.
+     */
+    private void sendCommandImpl(@NotNull JmbSession session, @NotNull ClientCommand command, boolean onlyIfActive) {
+
+        Server server = getServer();
+
+        if (server == null || onlyIfActive && activeSession != session) {
+            command.getAcknowledgement().cancel(false);
+            return;
+        }
+
+        activateSession(server, session);
+        write(server, session, command, onlyIfActive);
+    }
+
+    /**
+     * Checks that the feature is negotiated with the connected jMB.
+     *
+     * @param feature the feature.
+     * @return true if the feature can be used.
+     */
+    boolean hasCapability(int feature) {
+        return JmbCapabilities.has(capabilities, feature);
+    }
+
+    /**
+     * Sends the command of the session to jMB if we already have running instance and the session is active.
+     *
+     * @param session the session.
+     * @param command the command.
+     * @return the future of the acknowledgement of the command, it's cancelled if the session isn't active.
+     */
+    @NotNull CompletableFuture<JmbAcknowledgement> sendCommandIfRunning(
+            @NotNull JmbSession session,
+            @NotNull ClientCommand command
+    ) {
+
+        if (!isReady() || activeSession != session) {
+            command.getAcknowledgement().cancel(false);
+        } else {
+            dispatcher.dispatch(session, command, true);
+        }
+
+        return command.getAcknowledgement();
     }
 }
@@ -0,0 +1,343 @@
+package com.ss.jme.plugin.jmb;
+
+import com.intellij.openapi.application.PathManager;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.util.SystemInfo;
+import com.intellij.openapi.util.text.StringUtil;
+import com.intellij.util.execution.ParametersListUtil;
+import com.ss.jme.plugin.JmbLaunchProfile;
+import com.ss.jme.plugin.util.JmePluginUtils;
+import com.ss.rlib.common.util.StringUtils;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The command line to launch jMB from a jar with the settings of a launch profile.
+ *
+ * @author JavaSaBr
+ */
+class JmbLaunchCommand {
+
+    @NotNull
+    private static final Logger LOG = Logger.getInstance("#com.ss.jme.plugin.jmb.JmbLaunchCommand");
+
+    /**
+     * The min feature version of JDK which supports dynamic AppCDS archives.
+     */
+    private static final int CDS_MIN_JAVA_VERSION = 13;
+
+    /**
+     * The exit code of JVM which was terminated by SIGTERM and ran its exit hooks.
+     */
+    private static final int EXIT_CODE_TERMINATED = 143;
+
+    /**
+     * The command line.
+     */
+    @NotNull
+    private final List<String> command;
+
+    /**
+     * The file which jMB records the AppCDS archive to at exit or null.
+     */
+    @Nullable
+    private final Path recording;
+
+    /**
+     * The AppCDS archive which is used by next launches or null.
+     */
+    @Nullable
+    private final Path archive;
+
+    private JmbLaunchCommand(@NotNull List<String> command, @Nullable Path recording, @Nullable Path archive) {
+        this.command = command;
+        this.recording = recording;
+        this.archive = archive;
+    }
+
+    /**
+     * Builds the command to launch the jar of jMB.
+     *
+     * @param jar     the jar of jMB.
+     * @param profile the launch profile.
+     * @return the command.
+     */
+    static @NotNull JmbLaunchCommand build(@NotNull Path jar, @NotNull JmbLaunchProfile profile) {
+
+        List<String> command = new ArrayList<>();
+        command.add(getJavaExecutable(profile.getJavaHome()));
+
+        if (profile.getMaxHeap() > 0) {
+            command.add("-Xmx" + profile.getMaxHeap() + "m");
+        }
+
+        String gcOption = profile.getGarbageCollector().getOption();
+
+        if (gcOption != null) {
+            command.add(gcOption);
+        }
+
+        if (StringUtils.isNotEmpty(profile.getJvmOptions())) {
+            command.addAll(ParametersListUtil.parse(profile.getJvmOptions()));
+        }
+
+        Path archive = profile.isClassDataSharing() ? getCdsArchive(jar, profile, command) : null;
+        Path recording = null;
+
+        if (archive != null && Files.exists(archive)) {
+            LOG.debug("use the AppCDS archive: ", archive);
+            command.add("-XX:SharedArchiveFile=" + archive);
+            command.add("-Xshare:auto");
+        } else if (archive != null) {
+            recording = archive.resolveSibling(archive.getFileName() + ".part");
+            deleteArchive(recording);
+            LOG.info("jMB will record the AppCDS archive " + archive + " at exit.");
+            command.add("-XX:ArchiveClassesAtExit=" + recording);
+        }
+
+        command.add("-jar");
+        command.add(jar.toString());
+
+        return new JmbLaunchCommand(command, recording, archive);
+    }
+
+    /**
+     * Gets the command line.
+     *
+     * @return the command line.
+     */
+    @NotNull List<String> getCommand() {
+        return command;
+    }
+
+    /**
+     * Handles finishing of the launched jMB. The recorded AppCDS archive is used by next launches only if jMB exited
+     * by itself or by SIGTERM, JVM writes nothing or a broken archive if it was killed.
+     *
+     * @param exitCode the exit code of jMB.
+     */
+    void onFinished(int exitCode) {
+
+        if (recording == null || archive == null || !Files.exists(recording)) {
+            return;
+        }
+
+        if (exitCode != 0 && exitCode != EXIT_CODE_TERMINATED) {
+            LOG.info("jMB was finished with the code " + exitCode + ", the recorded AppCDS archive isn't used.");
+            deleteArchive(recording);
+            return;
+        }
+
+        try {
+            Files.move(recording, archive, StandardCopyOption.REPLACE_EXISTING);
+            LOG.info("the AppCDS archive " + archive + " was recorded.");
+        } catch (IOException e) {
+            LOG.warn(e);
+            deleteArchive(recording);
+        }
+    }
+
+    /**
+     * Gets the java executable of the JDK.
+     *
+     * @param javaHome the path to the JDK or empty to use java from PATH.
+     * @return the java executable.
+     */
+    private static @NotNull String getJavaExecutable(@NotNull String javaHome) {
+
+        if (StringUtils.isEmpty(javaHome)) {
+            return "java";
+        }
+
+        return Paths.get(javaHome, "bin", getJavaName()).toString();
+    }
+
+    private static @NotNull String getJavaName() {
+        return SystemInfo.isWindows ? "java.exe" : "java";
+    }
+
+    /**
+     * Gets the path of the AppCDS archive of the jar. The path depends on the digest of the jar content,
+     * the JDK and the JVM options, so the archive of another jar, JDK or options has another path.
+     *
+     * @param jar     the jar of jMB.
+     * @param profile the launch profile.
+     * @param options the JVM options of the command line.
+     * @return the path of the archive or null if the JDK doesn't support dynamic archives or the folder of
+     * archives can't be created.
+     */
+    private static @Nullable Path getCdsArchive(
+            @NotNull Path jar,
+            @NotNull JmbLaunchProfile profile,
+            @NotNull List<String> options
+    ) {
+
+        Path javaHome = getJavaHome(profile.getJavaHome());
+        String javaVersion = javaHome == null ? null : getJavaVersion(javaHome);
+        int featureVersion = getFeatureVersion(javaVersion);
+
+        if (featureVersion < CDS_MIN_JAVA_VERSION) {
+            LOG.info("AppCDS isn't used, the version of JDK " + javaHome + " is " + javaVersion + ".");
+            return null;
+        }
+
+        String jarHash = JmePluginUtils.getJmbHash(jar);
+
+        if (jarHash == null) {
+            return null;
+        }
+
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+
+        digest.update(jarHash.getBytes(StandardCharsets.UTF_8));
+        digest.update(javaHome.toString().getBytes(StandardCharsets.UTF_8));
+        digest.update(javaVersion.getBytes(StandardCharsets.UTF_8));
+
+        // the java executable isn't an option
+        for (String option : options.subList(1, options.size())) {
+            digest.update((byte) 0);
+            digest.update(option.getBytes(StandardCharsets.UTF_8));
+        }
+
+        Path folder = Paths.get(PathManager.getSystemPath(), "jmb", "cds");
+
+        try {
+            Files.createDirectories(folder);
+        } catch (IOException e) {
+            LOG.warn(e);
+            return null;
+        }
+
+        return folder.resolve("jmb-" + StringUtil.toHexString(digest.digest()) + ".jsa");
+    }
+
+    /**
+     * Gets the real path to the JDK.
+     *
+     * @param javaHome the path to the JDK or empty to use java from PATH.
+     * @return the real path to the JDK or null if it can't be found.
+     */
+    private static @Nullable Path getJavaHome(@NotNull String javaHome) {
+
+        if (StringUtils.isNotEmpty(javaHome)) {
+            return toRealPath(Paths.get(javaHome));
+        }
+
+        String path = System.getenv("PATH");
+
+        if (StringUtils.isEmpty(path)) {
+            return null;
+        }
+
+        for (String folder : path.split(File.pathSeparator)) {
+
+            if (StringUtils.isEmpty(folder)) {
+                continue;
+            }
+
+            Path java = toRealPath(Paths.get(folder, getJavaName()));
+
+            // the real java executable is placed in the bin folder of the JDK
+            if (java != null && java.getParent() != null && java.getParent().getParent() != null) {
+                return java.getParent().getParent();
+            }
+        }
+
+        return null;
+    }
+
+    private static @Nullable Path toRealPath(@NotNull Path path) {
+
+        if (!Files.exists(path)) {
+            return null;
+        }
+
+        try {
+            return path.toRealPath();
+        } catch (IOException e) {
+            LOG.warn(e);
+            return null;
+        }
+    }
+
+    /**
+     * Gets the version of the JDK from its release file.
+     *
+     * @param javaHome the path to the JDK.
+     * @return the version of the JDK or null if it's unknown.
+     */
+    private static @Nullable String getJavaVersion(@NotNull Path javaHome) {
+
+        Path release = javaHome.resolve("release");
+
+        // the release file of JDK 8 is placed in the parent folder of JRE
+        if (!Files.exists(release) && javaHome.getParent() != null) {
+            release = javaHome.getParent().resolve("release");
+        }
+
+        if (!Files.exists(release)) {
+            return null;
+        }
+
+        try {
+
+            for (String line : Files.readAllLines(release, StandardCharsets.UTF_8)) {
+                if (line.startsWith("JAVA_VERSION=")) {
+                    return StringUtil.unquoteString(line.substring("JAVA_VERSION=".length()).trim());
+                }
+            }
+
+        } catch (IOException e) {
+            LOG.warn(e);
+        }
+
+        return null;
+    }
+
+    /**
+     * Gets the feature version of JDK, e.g. 8 for "1.8.0_212" or 13 for "13.0.1".
+     *
+     * @param version the version of JDK or null.
+     * @return the feature version or 0 if it's unknown.
+     */
+    private static int getFeatureVersion(@Nullable String version) {
+
+        if (StringUtils.isEmpty(version)) {
+            return 0;
+        }
+
+        String[] parts = version.split("[.\\-+_]");
+        String feature = parts.length > 1 && "1".equals(parts[0]) ? parts[1] : parts[0];
+
+        try {
+            return Integer.parseInt(feature);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    private static void deleteArchive(@NotNull Path archive) {
+        try {
+            Files.deleteIfExists(archive);
+        } catch (IOException e) {
+            LOG.warn(e);
+        }
+    }
+}
@@ -0,0 +1,194 @@
+package com.ss.jme.plugin.jmb;
+
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.util.concurrency.AppExecutorUtil;
+import com.ss.jme.plugin.jmb.JmbConsoleBuffer.Level;
+import com.ss.jme.plugin.util.JmeConstants;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * The reader of stdout and stderr of a jMB process. Every stream is drained by its own blocking reader on
+ * the pooled application executor, so jMB never stalls on a full pipe and lines are handled as they come.
+ *
+ * @author JavaSaBr
+ */
+class JmbOutputReader {
+
+    @NotNull
+    private static final Logger LOG = Logger.getInstance("#com.ss.jme.plugin.jmb.JmbOutputReader");
+
+    /**
+     * The reader of stdout.
+     */
+    @NotNull
+    private final StreamReader stdout;
+
+    /**
+     * The reader of stderr.
+     */
+    @NotNull
+    private final StreamReader stderr;
+
+    /**
+     * The future which is completed when jMB prints the readiness marker.
+     */
+    @NotNull
+    private final CompletableFuture<Void> readiness;
+
+    JmbOutputReader(@NotNull Process process, @NotNull JmbConsoleBuffer buffer) {
+        this.readiness = new CompletableFuture<>();
+        this.stdout = new StreamReader(process.getInputStream(), buffer, Level.INFO);
+        this.stderr = new StreamReader(process.getErrorStream(), buffer, Level.ERROR);
+        AppExecutorUtil.getAppExecutorService().execute(stdout::run);
+        AppExecutorUtil.getAppExecutorService().execute(stderr::run);
+    }
+
+    /**
+     * Gets the future which is completed when jMB prints the readiness marker.
+     *
+     * @return the future of readiness.
+     */
+    @NotNull CompletableFuture<Void> getReadiness() {
+        return readiness;
+    }
+
+    /**
+     * The reader of one stream which splits output to lines.
+     */
+    private class StreamReader {
+
+        @NotNull
+        private final InputStream stream;
+
+        @NotNull
+        private final JmbConsoleBuffer buffer;
+
+        @NotNull
+        private final Level defaultLevel;
+
+        @NotNull
+        private final CharsetDecoder decoder;
+
+        @NotNull
+        private final ByteBuffer bytes;
+
+        @NotNull
+        private final CharBuffer chars;
+
+        @NotNull
+        private final StringBuilder line;
+
+        private StreamReader(@NotNull InputStream stream, @NotNull JmbConsoleBuffer buffer, @NotNull Level defaultLevel) {
+            this.stream = stream;
+            this.buffer = buffer;
+            this.defaultLevel = defaultLevel;
+            this.decoder = StandardCharsets.UTF_8.newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPLACE)
+                    .onUnmappableCharacter(CodingErrorAction.REPLACE);
+            this.bytes = ByteBuffer.allocate(8192);
+            this.chars = CharBuffer.allocate(8192);
+            this.line = new StringBuilder();
+        }
+
+        /**
+         * Reads the stream until the end of the process output.
+         */
+        private void run() {
+            try {
+                read();
+            } catch (IOException e) {
+                LOG.debug(e);
+            } finally {
+                if (line.length() > 0) {
+                    flushLine();
+                }
+                close();
+            }
+        }
+
+        /**
+         * Blocks on reading the stream and handles every read part at once.
+         *
+         * @throws IOException if the stream can't be read.
+         */
+        private void read() throws IOException {
+            for (int read = stream.read(bytes.array(), bytes.position(), bytes.remaining()); read >= 0;
+                 read = stream.read(bytes.array(), bytes.position(), bytes.remaining())) {
+
+                bytes.position(bytes.position() + read);
+                bytes.flip();
+                decoder.decode(bytes, chars, false);
+                bytes.compact();
+                chars.flip();
+                append(chars);
+                chars.clear();
+            }
+        }
+
+        private void append(@NotNull CharBuffer text) {
+            while (text.hasRemaining()) {
+
+                char ch = text.get();
+
+                if (ch == '\n') {
+                    flushLine();
+                } else if (ch != '\r') {
+                    line.append(ch);
+                    if (line.length() >= JmeConstants.JMB_CONSOLE_MAX_LINE_LENGTH) {
+                        flushLine();
+                    }
+                }
+            }
+        }
+
+        private void flushLine() {
+
+            String text = line.toString();
+            line.setLength(0);
+
+            if (text.contains(JmeConstants.JMB_READY_MARKER)) {
+                readiness.complete(null);
+            }
+
+            buffer.add(parseLevel(text, defaultLevel), text);
+        }
+
+        private void close() {
+            try {
+                stream.close();
+            } catch (IOException e) {
+                LOG.debug(e);
+            }
+        }
+    }
+
+    /**
+     * Gets a level of the output line by its log level token.
+     *
+     * @param text         the text of the line.
+     * @param defaultLevel the level of lines without a log level token.
+     * @return the level of the line.
+     */
+    private static @NotNull Level parseLevel(@NotNull String text, @NotNull Level defaultLevel) {
+        if (text.contains("ERROR") || text.contains("SEVERE")) {
+            return Level.ERROR;
+        } else if (text.contains("WARN")) {
+            return Level.WARNING;
+        } else if (text.contains("DEBUG") || text.contains("TRACE")) {
+            return Level.DEBUG;
+        } else if (text.contains("INFO")) {
+            return Level.INFO;
+        } else {
+            return defaultLevel;
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.ss.jme.plugin.jmb;
+
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.util.concurrency.AppExecutorUtil;
+import com.ss.jme.plugin.util.JmeConstants;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntConsumer;
+
+/**
+ * The shared supervisor of launched jMB processes which notifies about finished processes
+ * by periodic checks on the application scheduler instead of a waiting thread per process.
+ *
+ * @author JavaSaBr
+ */
+class JmbProcessReaper {
+
+    @NotNull
+    private static final Logger LOG = Logger.getInstance("#com.ss.jme.plugin.jmb.JmbProcessReaper");
+
+    /**
+     * The exit handlers of watched processes.
+     */
+    @NotNull
+    private final Map<Process, IntConsumer> watched;
+
+    /**
+     * The periodic checking of watched processes.
+     */
+    @NotNull
+    private final ScheduledFuture<?> checks;
+
+    JmbProcessReaper() {
+        this.watched = new ConcurrentHashMap<>();
+        this.checks = AppExecutorUtil.getAppScheduledExecutorService().scheduleWithFixedDelay(this::reap,
+                JmeConstants.JMB_REAPER_INTERVAL, JmeConstants.JMB_REAPER_INTERVAL, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Starts watching the process.
+     *
+     * @param process the process.
+     * @param onExit  the handler of the exit code which is called once after finishing the process.
+     */
+    void watch(@NotNull Process process, @NotNull IntConsumer onExit) {
+        watched.put(process, onExit);
+    }
+
+    /**
+     * Notifies handlers of finished processes.
+     */
+    private void reap() {
+
+        for (Iterator<Map.Entry<Process, IntConsumer>> iterator = watched.entrySet().iterator(); iterator.hasNext(); ) {
+
+            Map.Entry<Process, IntConsumer> entry = iterator.next();
+            Process process = entry.getKey();
+
+            if (process.isAlive()) {
+                continue;
+            }
+
+            iterator.remove();
+
+            try {
+                entry.getValue().accept(process.exitValue());
+            } catch (RuntimeException e) {
+                LOG.warn(e);
+            }
+        }
+    }
+
+    /**
+     * Stops watching processes, handlers of finished processes are notified for the last time.
+     */
+    void dispose() {
+        checks.cancel(false);
+        reap();
+        watched.clear();
+    }
+}
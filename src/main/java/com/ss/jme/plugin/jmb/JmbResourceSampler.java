@@ -0,0 +1,258 @@
+package com.ss.jme.plugin.jmb;
+
+import com.intellij.execution.process.OSProcessUtil;
+import com.intellij.notification.Notification;
+import com.intellij.notification.NotificationGroup;
+import com.intellij.notification.NotificationType;
+import com.intellij.notification.Notifications;
+import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.util.SystemInfo;
+import com.intellij.util.concurrency.AppExecutorUtil;
+import com.ss.jme.plugin.JmeMessagesBundle;
+import com.ss.jme.plugin.JmePluginComponent;
+import com.ss.jme.plugin.JmePluginState;
+import com.ss.jme.plugin.util.JmeConstants;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The sampler of memory, threads and CPU time of the running jMB process which reads them from /proc,
+ * warns about jMB which uses too much memory and restarts jMB which grew past the memory ceiling.
+ * Sampling is available only on Linux.
+ *
+ * @author JavaSaBr
+ */
+public class JmbResourceSampler {
+
+    @NotNull
+    private static final Logger LOG = Logger.getInstance("#com.ss.jme.plugin.jmb.JmbResourceSampler");
+
+    @NotNull
+    private static final NotificationGroup NOTIFICATIONS = NotificationGroup.balloonGroup("jMonkeyBuilder");
+
+    /**
+     * The count of clock ticks per second which is used by the kernel in /proc/[pid]/stat,
+     * it's 100 on all common Linux configurations.
+     */
+    private static final int CLOCK_TICKS = 100;
+
+    /**
+     * The instance of jMB.
+     */
+    @NotNull
+    private final JmbInstance instance;
+
+    /**
+     * The periodic sampling.
+     */
+    @NotNull
+    private final ScheduledFuture<?> sampling;
+
+    /**
+     * The last sample or null.
+     */
+    @Nullable
+    private volatile Sample sample;
+
+    /**
+     * The flag of shown warning about memory of the running jMB.
+     */
+    private volatile boolean warned;
+
+    JmbResourceSampler(@NotNull JmbInstance instance) {
+        this.instance = instance;
+        this.sampling = AppExecutorUtil.getAppScheduledExecutorService().scheduleWithFixedDelay(this::sample,
+                JmeConstants.JMB_RESOURCE_SAMPLE_INTERVAL, JmeConstants.JMB_RESOURCE_SAMPLE_INTERVAL,
+                TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Gets the last sample of the running jMB.
+     *
+     * @return the last sample or null if jMB isn't running or sampling isn't available.
+     */
+    public @Nullable Sample getSample() {
+        return sample;
+    }
+
+    /**
+     * Samples resources of the running jMB and checks the memory limits.
+     */
+    private void sample() {
+
+        Process process = instance.getProcess();
+
+        if (!SystemInfo.isLinux || process == null || !instance.isReady()) {
+            sample = null;
+            warned = false;
+            return;
+        }
+
+        Sample previous = sample;
+        Sample current = read(OSProcessUtil.getProcessID(process), previous);
+
+        sample = current;
+
+        if (current == null) {
+            return;
+        }
+
+        JmePluginState state = JmePluginComponent.getInstance().getState();
+
+        long rssMb = current.getRss() / 1024;
+        int ceiling = state.getJmbMemoryCeiling();
+        int warning = state.getJmbMemoryWarning();
+
+        if (ceiling > 0 && rssMb >= ceiling) {
+            LOG.warn("jMB uses " + rssMb + " MB which is over the ceiling " + ceiling + " MB, restart it.");
+            showWarning(JmeMessagesBundle.message("jmb.resources.ceiling.message", rssMb, ceiling));
+            instance.onUnhealthy();
+        } else if (warning > 0 && rssMb >= warning && !warned) {
+            warned = true;
+            showWarning(JmeMessagesBundle.message("jmb.resources.warning.message", rssMb, warning));
+        } else if (warning > 0 && rssMb < warning) {
+            warned = false;
+        }
+    }
+
+    /**
+     * Shows the warning about resources of jMB.
+     *
+     * @param message the message.
+     */
+    private static void showWarning(@NotNull String message) {
+        String title = JmeMessagesBundle.message("jmb.resources.title");
+        Notifications.Bus.notify(new Notification(NOTIFICATIONS.getDisplayId(), title, message,
+                NotificationType.WARNING));
+    }
+
+    /**
+     * Reads resources of the process from /proc.
+     *
+     * @param pid      the id of the process.
+     * @param previous the previous sample to calculate CPU usage or null.
+     * @return the sample or null if the process can't be read.
+     */
+    private static @Nullable Sample read(int pid, @Nullable Sample previous) {
+
+        Path folder = Paths.get("/proc", String.valueOf(pid));
+
+        try {
+
+            long rss = 0;
+            int threads = 0;
+
+            List<String> status = Files.readAllLines(folder.resolve("status"), StandardCharsets.UTF_8);
+
+            for (String line : status) {
+                if (line.startsWith("VmRSS:")) {
+                    rss = Long.parseLong(line.substring(6).replace("kB", "").trim());
+                } else if (line.startsWith("Threads:")) {
+                    threads = Integer.parseInt(line.substring(8).trim());
+                }
+            }
+
+            String stat = new String(Files.readAllBytes(folder.resolve("stat")), StandardCharsets.UTF_8);
+
+            // the name of the process is in parentheses and can contain spaces
+            String[] fields = stat.substring(stat.lastIndexOf(')') + 2).split(" ");
+
+            // utime and stime are the 14th and the 15th fields, the fields array starts from the 3rd field
+            long ticks = Long.parseLong(fields[11]) + Long.parseLong(fields[12]);
+            long cpuTime = ticks * 1000 / CLOCK_TICKS;
+            long time = System.currentTimeMillis();
+
+            double cpuUsage = -1;
+
+            if (previous != null && previous.pid == pid && time > previous.time) {
+                cpuUsage = (cpuTime - previous.cpuTime) * 100D / (time - previous.time);
+            }
+
+            return new Sample(pid, time, rss, threads, cpuTime, cpuUsage);
+
+        } catch (IOException | RuntimeException e) {
+            LOG.debug(e);
+            return null;
+        }
+    }
+
+    /**
+     * Stops sampling.
+     */
+    void dispose() {
+        sampling.cancel(false);
+        sample = null;
+    }
+
+    /**
+     * The sample of resources of jMB.
+     */
+    public static class Sample {
+
+        private final int pid;
+
+        private final long time;
+
+        private final long rss;
+
+        private final int threads;
+
+        private final long cpuTime;
+
+        private final double cpuUsage;
+
+        private Sample(int pid, long time, long rss, int threads, long cpuTime, double cpuUsage) {
+            this.pid = pid;
+            this.time = time;
+            this.rss = rss;
+            this.threads = threads;
+            this.cpuTime = cpuTime;
+            this.cpuUsage = cpuUsage;
+        }
+
+        /**
+         * Gets the resident set size of jMB.
+         *
+         * @return the resident set size in KB.
+         */
+        public long getRss() {
+            return rss;
+        }
+
+        /**
+         * Gets the count of threads of jMB.
+         *
+         * @return the count of threads.
+         */
+        public int getThreads() {
+            return threads;
+        }
+
+        /**
+         * Gets the total CPU time of jMB.
+         *
+         * @return the CPU time in ms.
+         */
+        public long getCpuTime() {
+            return cpuTime;
+        }
+
+        /**
+         * Gets the CPU usage of jMB since the previous sample.
+         *
+         * @return the CPU usage in percents of one core or -1 if it's unknown.
+         */
+        public double getCpuUsage() {
+            return cpuUsage;
+        }
+    }
+}
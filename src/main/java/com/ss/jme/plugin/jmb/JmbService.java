@@ -0,0 +1,98 @@
+package com.ss.jme.plugin.jmb;
+
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.components.ServiceManager;
+import com.intellij.openapi.module.Module;
+import com.ss.jme.plugin.jmb.command.server.ServerCommand;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The application level service which owns the shared instance of jMB, the instance is stopped
+ * when the application is closed.
+ *
+ * @author JavaSaBr
+ */
+public class JmbService implements Disposable {
+
+    public static @NotNull JmbService getInstance() {
+        return ServiceManager.getService(JmbService.class);
+    }
+
+    /**
+     * The shared instance of jMB.
+     */
+    @NotNull
+    private final JmbInstance instance;
+
+    /**
+     * The supervisor of launched processes of jMB.
+     */
+    @NotNull
+    private final JmbProcessReaper reaper;
+
+    /**
+     * The attached module sessions.
+     */
+    @NotNull
+    private final ConcurrentMap<Module, JmbSession> sessions;
+
+    public JmbService() {
+        this.reaper = new JmbProcessReaper();
+        this.instance = new JmbInstance(reaper);
+        this.sessions = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Gets the shared instance of jMB.
+     *
+     * @return the shared instance of jMB.
+     */
+    public @NotNull JmbInstance getSharedInstance() {
+        return instance;
+    }
+
+    /**
+     * Attaches the module to the shared instance of jMB.
+     *
+     * @param module the module.
+     * @return the module session.
+     */
+    public @NotNull JmbSession attach(@NotNull Module module) {
+        return sessions.computeIfAbsent(module, key -> new JmbSession(key, instance));
+    }
+
+    /**
+     * Handles the command received from jMB.
+     *
+     * @param command the command.
+     */
+    public void onServerCommand(@NotNull ServerCommand command) {
+        instance.onServerCommand(command);
+    }
+
+    /**
+     * Detaches the module from the shared instance of jMB.
+     *
+     * @param module the module.
+     */
+    public void detach(@NotNull Module module) {
+
+        JmbSession session = sessions.remove(module);
+
+        if (session != null) {
+            session.dispose();
+            instance.onSessionDetached(session, sessions.isEmpty());
+        }
+    }
+
+    @Override
+    public void dispose() {
+        sessions.values().forEach(JmbSession::dispose);
+        sessions.clear();
+        instance.dispose();
+        reaper.dispose();
+    }
+}
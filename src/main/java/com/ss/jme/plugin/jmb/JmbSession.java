@@ -0,0 +1,310 @@
+package com.ss.jme.plugin.jmb;
+
+import com.intellij.openapi.module.Module;
+import com.ss.jme.plugin.JmeModuleComponent;
+import com.ss.jme.plugin.jmb.command.client.ClientCommand;
+import com.ss.jme.plugin.jmb.command.client.InitClasspathClientCommand;
+import com.ss.jme.plugin.jmb.command.client.LoadChangedClassesClientCommand;
+import com.ss.jme.plugin.jmb.command.client.LoadLocalClassesClientCommand;
+import com.ss.jme.plugin.jmb.command.client.LoadLocalLibrariesClientCommand;
+import com.ss.jme.plugin.jmb.command.client.UpdateClasspathClientCommand;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * The module scoped session of the shared instance of jMB.
+ *
+ * @author JavaSaBr
+ */
+public class JmbSession {
+
+    /**
+     * The module.
+     */
+    @NotNull
+    private final Module module;
+
+    /**
+     * The shared instance of jMB.
+     */
+    @NotNull
+    private final JmbInstance instance;
+
+    /**
+     * The stage to merge bursts of changes of the module.
+     */
+    @NotNull
+    private final JmbSyncCoalescer coalescer;
+
+    /**
+     * The sequence number of the last build which was written to jMB.
+     */
+    @NotNull
+    private final AtomicInteger classesSequence;
+
+    /**
+     * The snapshot of libraries which was sent to jMB or null if jMB doesn't have the classpath of this session.
+     */
+    @Nullable
+    private JmbClasspathSnapshot sentClasspath;
+
+    /**
+     * The version of the classpath which was sent to jMB.
+     */
+    private int sentClasspathVersion;
+
+    /**
+     * The snapshots of libraries which are sent by not yet written commands,
+     * snapshots of dropped commands are forgotten with the commands.
+     */
+    @NotNull
+    private final Map<ClientCommand, JmbClasspathSnapshot> pendingClasspaths;
+
+    JmbSession(@NotNull Module module, @NotNull JmbInstance instance) {
+        this.module = module;
+        this.instance = instance;
+        this.coalescer = new JmbSyncCoalescer(this);
+        this.classesSequence = new AtomicInteger();
+        this.pendingClasspaths = new WeakHashMap<>();
+    }
+
+    /**
+     * Gets the module of this session.
+     *
+     * @return the module.
+     */
+    public @NotNull Module getModule() {
+        return module;
+    }
+
+    /**
+     * Gets the module component of this session.
+     *
+     * @return the module component.
+     */
+    public @NotNull JmeModuleComponent getModuleComponent() {
+        return module.getComponent(JmeModuleComponent.class);
+    }
+
+    /**
+     * Creates a command to load the classpath of this session's module in jMB. The sent classpath is changed
+     * only when the command is written.
+     *
+     * @return the command.
+     */
+    @NotNull InitClasspathClientCommand createInitClasspathCommand() {
+
+        // the snapshot is collected in a read action, so it's taken before locking this session which is locked
+        // by deactivating of the session inside a write action
+        JmeModuleComponent moduleComponent = getModuleComponent();
+        JmbClasspathSnapshot snapshot = moduleComponent.getClasspath();
+
+        InitClasspathClientCommand command =
+                new InitClasspathClientCommand(moduleComponent.getCompileOutput(), snapshot.getLibraries());
+
+        synchronized (this) {
+            pendingClasspaths.put(command, snapshot);
+        }
+
+        return command;
+    }
+
+    /**
+     * Creates a command to apply changes of libraries since the last sent classpath, if jMB doesn't support
+     * classpath deltas or the changes don't keep the order of libraries the command contains all libraries.
+     * The sent classpath is changed only when the command is written, so a dropped or superseded command
+     * doesn't change it.
+     *
+     * @return the command or null if libraries weren't changed or jMB doesn't have the classpath of this session.
+     */
+    @Nullable ClientCommand createUpdateClasspathCommand() {
+
+        // the snapshot is taken before locking this session, see createInitClasspathCommand
+        JmbClasspathSnapshot snapshot = getModuleComponent().getClasspath();
+        ClientCommand command;
+
+        synchronized (this) {
+
+            JmbClasspathSnapshot base = sentClasspath;
+            if (base == null || snapshot.isSameAs(base)) {
+                return null;
+            }
+
+            // deltas can't express a changed order of libraries, e.g. only reordered libraries
+            if (!instance.hasCapability(JmbCapabilities.CLASSPATH_DELTAS) || !snapshot.keepsOrderOf(base)) {
+                command = new LoadLocalLibrariesClientCommand(snapshot.getLibraries());
+            } else {
+                command = new UpdateClasspathClientCommand(sentClasspathVersion, sentClasspathVersion + 1,
+                        snapshot.getAddedSince(base), snapshot.getRemovedSince(base));
+            }
+
+            pendingClasspaths.put(command, snapshot);
+        }
+
+        return command;
+    }
+
+    /**
+     * Notifies about that the command of this session was written to jMB, the libraries of the written
+     * command become the base of the next changes.
+     *
+     * @param command the command.
+     */
+    synchronized void onWritten(@NotNull ClientCommand command) {
+
+        JmbClasspathSnapshot snapshot = pendingClasspaths.remove(command);
+
+        if (snapshot == null) {
+            return;
+        } else if (command instanceof InitClasspathClientCommand) {
+            sentClasspath = snapshot;
+            sentClasspathVersion = 0;
+            return;
+        } else if (sentClasspath == null) {
+            return;
+        }
+
+        if (command instanceof UpdateClasspathClientCommand) {
+
+            UpdateClasspathClientCommand update = (UpdateClasspathClientCommand) command;
+
+            // the changes are based on an older version, so jMB will request full synchronization
+            if (update.getBaseVersion() != sentClasspathVersion) {
+                return;
+            }
+
+            sentClasspathVersion = update.getVersion();
+        }
+
+        sentClasspath = snapshot;
+    }
+
+    /**
+     * Notifies about that jMB doesn't have the classpath of this session anymore.
+     */
+    synchronized void onDeactivated() {
+        sentClasspath = null;
+    }
+
+    /**
+     * Sends changes of libraries to jMB if it's running, this session is active and libraries were changed.
+     */
+    void sendClasspathUpdateIfRunning() {
+
+        if (!instance.isActive(this)) {
+            return;
+        }
+
+        ClientCommand command = createUpdateClasspathCommand();
+
+        if (command != null) {
+            sendCommandIfRunning(command);
+        }
+    }
+
+    /**
+     * Notifies about that the command of this session is going to be written to jMB.
+     * The build sequence number is assigned only to the written command, so dropped and superseded
+     * commands don't leave gaps, and it starts again after the classpath or all classes are loaded.
+     *
+     * @param command the command.
+     */
+    void onWrite(@NotNull ClientCommand command) {
+
+        if (command instanceof InitClasspathClientCommand || command instanceof LoadLocalClassesClientCommand) {
+            classesSequence.set(0);
+        } else if (command instanceof LoadChangedClassesClientCommand) {
+
+            LoadChangedClassesClientCommand changedClasses = (LoadChangedClassesClientCommand) command;
+
+            // the resent command keeps its number
+            if (changedClasses.getSequence() == 0) {
+                changedClasses.setSequence(classesSequence.incrementAndGet());
+            }
+        }
+    }
+
+    /**
+     * Checks that the feature is negotiated with the connected jMB.
+     *
+     * @param feature the feature.
+     * @return true if the feature can be used.
+     */
+    boolean hasCapability(int feature) {
+        return instance.hasCapability(feature);
+    }
+
+    /**
+     * Sends the command to jMB, jMB will be launched if it isn't running.
+     *
+     * @param command the command.
+     * @return the future of the acknowledgement of the command.
+     */
+    public @NotNull CompletableFuture<JmbAcknowledgement> sendCommand(@NotNull ClientCommand command) {
+        return instance.sendCommand(this, command, module.getProject());
+    }
+
+    /**
+     * Launches jMB in background with the classpath of this session if it isn't running.
+     */
+    public void prewarm() {
+        instance.prewarm(this, module.getProject());
+    }
+
+    /**
+     * Notifies about changed compiled classes of the module without knowing which classes were changed,
+     * jMB will reload all classes after the quiet window.
+     */
+    public void onClassesChanged() {
+        coalescer.onClassesChanged();
+    }
+
+    /**
+     * Notifies about generated and deleted compiled classes of the module,
+     * jMB will reload only them after the quiet window.
+     *
+     * @param changed the paths of generated classes relative to the output folder.
+     * @param deleted the paths of deleted classes relative to the output folder.
+     */
+    public void onClassesChanged(@NotNull Collection<String> changed, @NotNull Collection<String> deleted) {
+        coalescer.onClassesChanged(changed, deleted);
+    }
+
+    /**
+     * Sends all compiled classes of the module to jMB.
+     */
+    void resync() {
+        sendCommandIfRunning(createInitClasspathCommand());
+        sendCommandIfRunning(new LoadLocalClassesClientCommand(getModuleComponent().getCompileOutput()));
+    }
+
+    /**
+     * Notifies about changed libraries of the module, jMB will be updated after the quiet window.
+     */
+    public void onLibrariesChanged() {
+        coalescer.onLibrariesChanged();
+    }
+
+    /**
+     * Releases resources of this session.
+     */
+    void dispose() {
+        coalescer.dispose();
+    }
+
+    /**
+     * Sends the command to jMB if it's running and this session is active.
+     *
+     * @param command the command.
+     * @return the future of the acknowledgement of the command, it's cancelled if the command wasn't sent.
+     */
+    public @NotNull CompletableFuture<JmbAcknowledgement> sendCommandIfRunning(@NotNull ClientCommand command) {
+        return instance.sendCommandIfRunning(this, command);
+    }
+}
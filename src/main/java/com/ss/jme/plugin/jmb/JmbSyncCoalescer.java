@@ -0,0 +1,187 @@
+package com.ss.jme.plugin.jmb;
+
+import com.intellij.openapi.util.Disposer;
+import com.intellij.util.Alarm;
+import com.ss.jme.plugin.JmeModuleComponent;
+import com.ss.jme.plugin.JmePluginComponent;
+import com.ss.jme.plugin.jmb.command.client.ClientCommand;
+import com.ss.jme.plugin.jmb.command.client.LoadChangedClassesClientCommand;
+import com.ss.jme.plugin.jmb.command.client.LoadLocalClassesClientCommand;
+import com.ss.rlib.common.util.array.ArrayCollectors;
+import org.jetbrains.annotations.NotNull;
+
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * The stage to merge bursts of changes of a module to one synchronization with jMB
+ * after the configured quiet window.
+ *
+ * @author JavaSaBr
+ */
+class JmbSyncCoalescer {
+
+    /**
+     * The session.
+     */
+    @NotNull
+    private final JmbSession session;
+
+    /**
+     * The alarm to wait for the quiet window.
+     */
+    @NotNull
+    private final Alarm alarm;
+
+    /**
+     * The flag of changed compiled classes.
+     */
+    @NotNull
+    private final AtomicBoolean classesChanged;
+
+    /**
+     * The paths of generated classes since the last synchronization.
+     */
+    @NotNull
+    private final Set<String> changedClasses;
+
+    /**
+     * The paths of deleted classes since the last synchronization.
+     */
+    @NotNull
+    private final Set<String> deletedClasses;
+
+    /**
+     * The flag to reload all classes because it's unknown which classes were changed.
+     */
+    private boolean fullClassesSync;
+
+    /**
+     * The flag of changed libraries.
+     */
+    @NotNull
+    private final AtomicBoolean librariesChanged;
+
+    JmbSyncCoalescer(@NotNull JmbSession session) {
+        this.session = session;
+        this.alarm = new Alarm(Alarm.ThreadToUse.POOLED_THREAD);
+        this.classesChanged = new AtomicBoolean();
+        this.changedClasses = new HashSet<>();
+        this.deletedClasses = new HashSet<>();
+        this.librariesChanged = new AtomicBoolean();
+    }
+
+    /**
+     * Notifies about changed compiled classes of the module without knowing which classes were changed.
+     */
+    void onClassesChanged() {
+
+        synchronized (this) {
+            fullClassesSync = true;
+            changedClasses.clear();
+            deletedClasses.clear();
+        }
+
+        classesChanged.set(true);
+        reschedule();
+    }
+
+    /**
+     * Notifies about generated and deleted compiled classes of the module.
+     *
+     * @param changed the paths of generated classes relative to the output folder.
+     * @param deleted the paths of deleted classes relative to the output folder.
+     */
+    void onClassesChanged(@NotNull Collection<String> changed, @NotNull Collection<String> deleted) {
+
+        synchronized (this) {
+            if (!fullClassesSync) {
+                deletedClasses.removeAll(changed);
+                changedClasses.addAll(changed);
+                changedClasses.removeAll(deleted);
+                deletedClasses.addAll(deleted);
+            }
+        }
+
+        classesChanged.set(true);
+        reschedule();
+    }
+
+    /**
+     * Notifies about changed libraries of the module.
+     */
+    void onLibrariesChanged() {
+        librariesChanged.set(true);
+        reschedule();
+    }
+
+    /**
+     * Restarts waiting for the quiet window.
+     */
+    private void reschedule() {
+
+        int quietWindow = JmePluginComponent.getInstance()
+                .getState()
+                .getSyncQuietWindow();
+
+        alarm.cancelAllRequests();
+        alarm.addRequest(this::flush, Math.max(quietWindow, 0));
+    }
+
+    /**
+     * Sends the latest state of the changed parts of the module to jMB.
+     */
+    private void flush() {
+
+        if (session.getModule().isDisposed()) {
+            return;
+        }
+
+        JmeModuleComponent moduleComponent = session.getModuleComponent();
+
+        if (librariesChanged.getAndSet(false)) {
+            session.sendClasspathUpdateIfRunning();
+        }
+
+        if (classesChanged.getAndSet(false)) {
+            session.sendCommandIfRunning(createClassesCommand(moduleComponent));
+        }
+    }
+
+    /**
+     * Creates a command to reload changed classes since the last synchronization.
+     *
+     * @param moduleComponent the module component.
+     * @return the command.
+     */
+    private synchronized @NotNull ClientCommand createClassesCommand(@NotNull JmeModuleComponent moduleComponent) {
+
+        Path output = moduleComponent.getClassesOutput();
+
+        try {
+
+            if (fullClassesSync || output == null || !session.hasCapability(JmbCapabilities.CHANGED_CLASSES)) {
+                return new LoadLocalClassesClientCommand(moduleComponent.getCompileOutput());
+            }
+
+            return new LoadChangedClassesClientCommand(output,
+                    changedClasses.stream().collect(ArrayCollectors.toArray(String.class)),
+                    deletedClasses.stream().collect(ArrayCollectors.toArray(String.class)));
+
+        } finally {
+            fullClassesSync = false;
+            changedClasses.clear();
+            deletedClasses.clear();
+        }
+    }
+
+    /**
+     * Cancels waiting and releases resources.
+     */
+    void dispose() {
+        Disposer.dispose(alarm);
+    }
+}
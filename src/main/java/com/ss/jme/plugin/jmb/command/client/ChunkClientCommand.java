@@ -0,0 +1,110 @@
+package com.ss.jme.plugin.jmb.command.client;
+
+import com.ss.rlib.common.network.annotation.PacketDescription;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.nio.ByteBuffer;
+
+/**
+ * The command to transfer a part of data of a command which is too large for one packet.
+ * jMB should collect all chunks of the same transfer and read the original command
+ * by its id from the joined data. Chunks don't have own request ids, the request id of the original
+ * command is in the joined data.
+ *
+ * @author JavaSaBr
+ */
+@PacketDescription(id = 7)
+public class ChunkClientCommand extends ClientCommand {
+
+    /**
+     * The id of the transfer.
+     */
+    private final int transferId;
+
+    /**
+     * The id of the original command.
+     */
+    private final int commandId;
+
+    /**
+     * The index of this chunk.
+     */
+    private final int index;
+
+    /**
+     * The count of chunks in the transfer.
+     */
+    private final int count;
+
+    /**
+     * The buffer with data of the original command.
+     */
+    @NotNull
+    private final ByteBuffer source;
+
+    /**
+     * The offset of data of this chunk in the source buffer.
+     */
+    private final int offset;
+
+    /**
+     * The length of data of this chunk.
+     */
+    private final int length;
+
+    /**
+     * The callback to call after writing this chunk.
+     */
+    @Nullable
+    private final Runnable onWritten;
+
+    public ChunkClientCommand(
+            int transferId,
+            int commandId,
+            int index,
+            int count,
+            @NotNull ByteBuffer source,
+            int offset,
+            int length,
+            @Nullable Runnable onWritten
+    ) {
+        this.transferId = transferId;
+        this.commandId = commandId;
+        this.index = index;
+        this.count = count;
+        this.source = source;
+        this.offset = offset;
+        this.length = length;
+        this.onWritten = onWritten;
+    }
+
+    @Override
+    public @NotNull Priority getPriority() {
+        return Priority.SYNC;
+    }
+
+    @Override
+    protected boolean hasRequestId() {
+        return false;
+    }
+
+    @Override
+    protected void writeData(@NotNull ByteBuffer buffer) {
+        writeInt(buffer, transferId);
+        writeInt(buffer, commandId);
+        writeInt(buffer, index);
+        writeInt(buffer, count);
+        writeInt(buffer, length);
+
+        ByteBuffer data = source.duplicate();
+        data.limit(offset + length);
+        data.position(offset);
+
+        buffer.put(data);
+
+        if (onWritten != null) {
+            onWritten.run();
+        }
+    }
+}
@@ -1,6 +1,16 @@
 package com.ss.jme.plugin.jmb.command.client;
 
+import com.ss.jme.plugin.jmb.JmbAcknowledgement;
+import com.ss.jme.plugin.jmb.JmbCapabilities;
+import com.ss.rlib.common.network.annotation.PacketDescription;
 import com.ss.rlib.common.network.packet.impl.AbstractWritablePacket;
+import com.ss.rlib.common.util.array.Array;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * The base implementation of a client command.
@@ -8,4 +18,238 @@ import com.ss.rlib.common.network.packet.impl.AbstractWritablePacket;
  * @author JavaSaBr
  */
 public abstract class ClientCommand extends AbstractWritablePacket {
+
+    /**
+     * The priority of sending a command.
+     */
+    public enum Priority {
+        /**
+         * The command is requested by a user and should be sent as soon as possible.
+         */
+        INTERACTIVE,
+        /**
+         * The command synchronizes a state of the module in background.
+         */
+        SYNC
+    }
+
+    /**
+     * The acknowledgement of processing this command by jMB.
+     */
+    @NotNull
+    private final CompletableFuture<JmbAcknowledgement> acknowledgement = new CompletableFuture<>();
+
+    /**
+     * The id to correlate this command with its acknowledgement or 0 if it isn't tracked.
+     */
+    private volatile long requestId;
+
+    /**
+     * The negotiated capabilities of the connection which this command is written to.
+     */
+    private volatile int capabilities;
+
+    /**
+     * The already encoded data of this command to write to the network instead of encoding it again.
+     */
+    @Nullable
+    private volatile ByteBuffer encoded;
+
+    /**
+     * The callback to call after writing the encoded data.
+     */
+    @Nullable
+    private volatile Runnable onEncodedWritten;
+
+    /**
+     * Gets the acknowledgement of processing this command by jMB. The future is cancelled if the command
+     * was dropped before sending and is completed exceptionally if the command was rejected or timed out.
+     *
+     * @return the acknowledgement.
+     */
+    public @NotNull CompletableFuture<JmbAcknowledgement> getAcknowledgement() {
+        return acknowledgement;
+    }
+
+    /**
+     * Gets the id to correlate this command with its acknowledgement.
+     *
+     * @return the request id or 0 if it isn't tracked.
+     */
+    public long getRequestId() {
+        return requestId;
+    }
+
+    /**
+     * Sets the id to correlate this command with its acknowledgement.
+     *
+     * @param requestId the request id.
+     */
+    public void setRequestId(long requestId) {
+        this.requestId = requestId;
+    }
+
+    /**
+     * Sets the negotiated capabilities of the connection which this command is going to be written to.
+     *
+     * @param capabilities the capabilities.
+     */
+    public void setCapabilities(int capabilities) {
+        this.capabilities = capabilities;
+    }
+
+    /**
+     * Checks that the feature is enabled for the connection which this command is written to.
+     *
+     * @param feature the feature.
+     * @return true if the feature is enabled.
+     */
+    protected boolean hasCapability(int feature) {
+        return JmbCapabilities.has(capabilities, feature);
+    }
+
+    /**
+     * Gets the priority of sending this command.
+     *
+     * @return the priority.
+     */
+    public @NotNull Priority getPriority() {
+        return Priority.SYNC;
+    }
+
+    /**
+     * Gets the key to find queued commands which are superseded by this command.
+     *
+     * @return the key or null if this command doesn't supersede other commands.
+     */
+    public @Nullable Object getSupersedeKey() {
+        return null;
+    }
+
+    /**
+     * Checks that this command can be sent again when jMB doesn't acknowledge it,
+     * processing of a retryable command again doesn't change the result.
+     *
+     * @return true if this command can be resent.
+     */
+    public boolean isRetryable() {
+        return false;
+    }
+
+    /**
+     * Gets the id of this command.
+     *
+     * @return the id of this command.
+     */
+    public int getCommandId() {
+        return getClass().getAnnotation(PacketDescription.class).id();
+    }
+
+    /**
+     * Writes data of this command to the buffer.
+     *
+     * @param buffer the buffer.
+     * @throws java.nio.BufferOverflowException if the buffer doesn't have enough space.
+     */
+    public void writeTo(@NotNull ByteBuffer buffer) {
+        writeImpl(buffer);
+    }
+
+    /**
+     * Sets the data of this command which was already encoded by {@link #writeTo(ByteBuffer)},
+     * so the next writing to the network copies the data instead of encoding this command again.
+     *
+     * @param encoded   the encoded data from the position to the limit.
+     * @param onWritten the callback to call after writing the encoded data.
+     */
+    public void setEncoded(@NotNull ByteBuffer encoded, @NotNull Runnable onWritten) {
+        this.onEncodedWritten = onWritten;
+        this.encoded = encoded;
+    }
+
+    /**
+     * Checks that this command has the request id in its header when acknowledgements are negotiated.
+     *
+     * @return true if this command has the request id.
+     */
+    protected boolean hasRequestId() {
+        return true;
+    }
+
+    @Override
+    protected final void writeImpl(@NotNull ByteBuffer buffer) {
+
+        ByteBuffer encoded = this.encoded;
+
+        if (encoded != null) {
+
+            Runnable onWritten = onEncodedWritten;
+
+            this.encoded = null;
+            this.onEncodedWritten = null;
+
+            buffer.put(encoded);
+
+            if (onWritten != null) {
+                onWritten.run();
+            }
+
+            return;
+        }
+
+        super.writeImpl(buffer);
+
+        if (hasRequestId() && hasCapability(JmbCapabilities.ACKNOWLEDGEMENTS)) {
+            writeLong(buffer, requestId);
+        }
+
+        writeData(buffer);
+    }
+
+    /**
+     * Writes data of this command after its header.
+     *
+     * @param buffer the buffer.
+     */
+    protected void writeData(@NotNull ByteBuffer buffer) {
+    }
+
+    /**
+     * Writes the list of paths by front coding: the count of paths and then for each path in UTF-8
+     * the count of bytes of the prefix shared with the previous path and the rest bytes of the path.
+     * The prefix is measured in bytes, so it never splits a character which jMB joins back.
+     * If the front coding isn't negotiated, paths are written as strings.
+     *
+     * @param buffer the buffer.
+     * @param paths  the paths.
+     */
+    protected void writePaths(@NotNull ByteBuffer buffer, @NotNull Array<?> paths) {
+
+        writeInt(buffer, paths.size());
+
+        if (!hasCapability(JmbCapabilities.FRONT_CODING)) {
+            paths.forEach(path -> writeString(buffer, path.toString()));
+            return;
+        }
+
+        byte[] previous = new byte[0];
+
+        for (Object element : paths) {
+
+            byte[] path = element.toString().getBytes(StandardCharsets.UTF_8);
+
+            int shared = 0;
+            int max = Math.min(previous.length, path.length);
+
+            while (shared < max && previous[shared] == path[shared]) {
+                shared++;
+            }
+
+            writeInt(buffer, shared);
+            writeInt(buffer, path.length - shared);
+            buffer.put(path, shared, path.length - shared);
+
+            previous = path;
+        }
+    }
 }
@@ -0,0 +1,50 @@
+package com.ss.jme.plugin.jmb.command.client;
+
+import com.ss.rlib.common.network.annotation.PacketDescription;
+import org.jetbrains.annotations.NotNull;
+
+import java.nio.ByteBuffer;
+
+/**
+ * The envelope of a command which data is compressed by deflate in the zlib format.
+ *
+ * @author JavaSaBr
+ */
+@PacketDescription(id = 9)
+public class CompressedClientCommand extends ClientCommand {
+
+    /**
+     * The id of the compressed command.
+     */
+    private final int commandId;
+
+    /**
+     * The size of data of the command before compression.
+     */
+    private final int originalLength;
+
+    /**
+     * The compressed data from the position to the limit.
+     */
+    @NotNull
+    private final ByteBuffer data;
+
+    public CompressedClientCommand(int commandId, int originalLength, @NotNull ByteBuffer data) {
+        this.commandId = commandId;
+        this.originalLength = originalLength;
+        this.data = data;
+    }
+
+    @Override
+    protected boolean hasRequestId() {
+        return false;
+    }
+
+    @Override
+    protected void writeData(@NotNull ByteBuffer buffer) {
+        writeInt(buffer, commandId);
+        writeInt(buffer, originalLength);
+        writeInt(buffer, data.remaining());
+        buffer.put(data.duplicate());
+    }
+}
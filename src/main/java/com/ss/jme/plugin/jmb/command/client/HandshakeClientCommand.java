@@ -0,0 +1,43 @@
+package com.ss.jme.plugin.jmb.command.client;
+
+import com.ss.rlib.common.network.annotation.PacketDescription;
+import org.jetbrains.annotations.NotNull;
+
+import java.nio.ByteBuffer;
+
+/**
+ * The command to answer the handshake of jMB with the negotiated capabilities.
+ * This command is always written without optional features, the commands written before it don't use
+ * optional features either and the commands written after it use the negotiated capabilities.
+ *
+ * @author JavaSaBr
+ */
+@PacketDescription(id = 8)
+public class HandshakeClientCommand extends ClientCommand {
+
+    /**
+     * The version of the protocol of the plugin.
+     */
+    private final int apiVersion;
+
+    /**
+     * The capabilities which both sides support.
+     */
+    private final int negotiated;
+
+    public HandshakeClientCommand(int apiVersion, int negotiated) {
+        this.apiVersion = apiVersion;
+        this.negotiated = negotiated;
+    }
+
+    @Override
+    public @NotNull Priority getPriority() {
+        return Priority.INTERACTIVE;
+    }
+
+    @Override
+    protected void writeData(@NotNull ByteBuffer buffer) {
+        writeInt(buffer, apiVersion);
+        writeInt(buffer, negotiated);
+    }
+}
@@ -0,0 +1,34 @@
+package com.ss.jme.plugin.jmb.command.client;
+
+import com.ss.rlib.common.network.annotation.PacketDescription;
+import org.jetbrains.annotations.NotNull;
+
+import java.nio.ByteBuffer;
+
+/**
+ * The command to check that jMB is responsive, jMB should answer with the same sequence number.
+ *
+ * @author JavaSaBr
+ */
+@PacketDescription(id = 11)
+public class HeartbeatClientCommand extends ClientCommand {
+
+    /**
+     * The sequence number of the heartbeat.
+     */
+    private final long sequence;
+
+    public HeartbeatClientCommand(long sequence) {
+        this.sequence = sequence;
+    }
+
+    @Override
+    public @NotNull Priority getPriority() {
+        return Priority.INTERACTIVE;
+    }
+
+    @Override
+    protected void writeData(@NotNull ByteBuffer buffer) {
+        writeLong(buffer, sequence);
+    }
+}
@@ -34,10 +34,13 @@ public class InitClasspathClientCommand extends ClientCommand {
     }
 
     @Override
-    protected void writeImpl(@NotNull ByteBuffer buffer) {
-        super.writeImpl(buffer);
-        writeInt(buffer, libraries.size());
-        libraries.forEach(library -> writeString(buffer, library.toString()));
+    public boolean isRetryable() {
+        return true;
+    }
+
+    @Override
+    protected void writeData(@NotNull ByteBuffer buffer) {
+        writePaths(buffer, libraries);
         writeString(buffer, output == null ? "" : output.toString());
     }
 }
@@ -0,0 +1,79 @@
+package com.ss.jme.plugin.jmb.command.client;
+
+import com.ss.rlib.common.network.annotation.PacketDescription;
+import com.ss.rlib.common.util.array.Array;
+import org.jetbrains.annotations.NotNull;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+
+/**
+ * The command to reload only changed compiled classes of a module in jMB.
+ * The sequence number is increased by each written command and starts again from 1 after
+ * the classpath or all classes of the module are loaded, so jMB can detect a missed command
+ * and request full synchronization.
+ *
+ * @author JavaSaBr
+ */
+@PacketDescription(id = 5)
+public class LoadChangedClassesClientCommand extends ClientCommand {
+
+    /**
+     * The build sequence number or 0 if it isn't assigned yet.
+     */
+    private volatile int sequence;
+
+    /**
+     * The output folder of classes.
+     */
+    @NotNull
+    private final Path output;
+
+    /**
+     * The paths of generated classes relative to the output folder.
+     */
+    @NotNull
+    private final Array<String> changed;
+
+    /**
+     * The paths of deleted classes relative to the output folder.
+     */
+    @NotNull
+    private final Array<String> deleted;
+
+    public LoadChangedClassesClientCommand(
+            @NotNull Path output,
+            @NotNull Array<String> changed,
+            @NotNull Array<String> deleted
+    ) {
+        this.output = output;
+        this.changed = changed;
+        this.deleted = deleted;
+    }
+
+    /**
+     * Gets the build sequence number.
+     *
+     * @return the build sequence number or 0 if it isn't assigned yet.
+     */
+    public int getSequence() {
+        return sequence;
+    }
+
+    /**
+     * Sets the build sequence number right before writing this command.
+     *
+     * @param sequence the build sequence number.
+     */
+    public void setSequence(int sequence) {
+        this.sequence = sequence;
+    }
+
+    @Override
+    protected void writeData(@NotNull ByteBuffer buffer) {
+        writeInt(buffer, sequence);
+        writeString(buffer, output.toString());
+        writePaths(buffer, changed);
+        writePaths(buffer, deleted);
+    }
+}
@@ -26,8 +26,17 @@ public class LoadLocalClassesClientCommand extends ClientCommand {
     }
 
     @Override
-    protected void writeImpl(@NotNull ByteBuffer buffer) {
-        super.writeImpl(buffer);
+    public @NotNull Object getSupersedeKey() {
+        return LoadLocalClassesClientCommand.class;
+    }
+
+    @Override
+    public boolean isRetryable() {
+        return true;
+    }
+
+    @Override
+    protected void writeData(@NotNull ByteBuffer buffer) {
         writeString(buffer, output == null ? "" : output.toString());
     }
 }
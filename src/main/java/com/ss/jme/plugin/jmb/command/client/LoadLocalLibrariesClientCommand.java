@@ -26,9 +26,17 @@ public class LoadLocalLibrariesClientCommand extends ClientCommand {
     }
 
     @Override
-    protected void writeImpl(@NotNull ByteBuffer buffer) {
-        super.writeImpl(buffer);
-        writeInt(buffer, libraries.size());
-        libraries.forEach(library -> writeString(buffer, library.toString()));
+    public @NotNull Object getSupersedeKey() {
+        return LoadLocalLibrariesClientCommand.class;
+    }
+
+    @Override
+    public boolean isRetryable() {
+        return true;
+    }
+
+    @Override
+    protected void writeData(@NotNull ByteBuffer buffer) {
+        writePaths(buffer, libraries);
     }
 }
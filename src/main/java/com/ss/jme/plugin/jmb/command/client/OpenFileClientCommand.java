@@ -5,6 +5,7 @@ import org.jetbrains.annotations.NotNull;
 
 import java.nio.ByteBuffer;
 import java.nio.file.Path;
+import java.nio.file.Paths;
 
 /**
  * The command to open a file in jMB.
@@ -31,9 +32,22 @@ public class OpenFileClientCommand extends ClientCommand {
         this.file = file.toString();
     }
 
+    /**
+     * Gets the file to open.
+     *
+     * @return the file to open.
+     */
+    public @NotNull Path getFile() {
+        return Paths.get(file);
+    }
+
+    @Override
+    public @NotNull Priority getPriority() {
+        return Priority.INTERACTIVE;
+    }
+
     @Override
-    protected void writeImpl(@NotNull ByteBuffer buffer) {
-        super.writeImpl(buffer);
+    protected void writeData(@NotNull ByteBuffer buffer) {
         writeString(buffer, assetFolder);
         writeString(buffer, file);
     }
@@ -0,0 +1,67 @@
+package com.ss.jme.plugin.jmb.command.client;
+
+import com.ss.rlib.common.network.annotation.PacketDescription;
+import com.ss.rlib.common.util.array.Array;
+import com.ss.rlib.common.util.array.ArrayCollectors;
+import org.jetbrains.annotations.NotNull;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+
+/**
+ * The command to open several files of the same asset folder in jMB at once.
+ *
+ * @author JavaSaBr
+ */
+@PacketDescription(id = 10)
+public class OpenFilesClientCommand extends ClientCommand {
+
+    /**
+     * The asset folder.
+     */
+    @NotNull
+    private final Path assetFolder;
+
+    /**
+     * The files to open.
+     */
+    @NotNull
+    private final Array<Path> files;
+
+    public OpenFilesClientCommand(@NotNull Path assetFolder, @NotNull Array<Path> files) {
+        this.assetFolder = assetFolder;
+        this.files = files;
+    }
+
+    /**
+     * Gets the files to open.
+     *
+     * @return the files to open.
+     */
+    public @NotNull Array<Path> getFiles() {
+        return files;
+    }
+
+    /**
+     * Splits this command to commands to open each file separately for jMB which doesn't support batches.
+     *
+     * @return the commands to open each file.
+     */
+    public @NotNull Array<OpenFileClientCommand> toSingleCommands() {
+
+        return files.stream()
+                .map(file -> new OpenFileClientCommand(assetFolder, file))
+                .collect(ArrayCollectors.toArray(OpenFileClientCommand.class));
+    }
+
+    @Override
+    public @NotNull Priority getPriority() {
+        return Priority.INTERACTIVE;
+    }
+
+    @Override
+    protected void writeData(@NotNull ByteBuffer buffer) {
+        writeString(buffer, assetFolder.toString());
+        writePaths(buffer, files);
+    }
+}
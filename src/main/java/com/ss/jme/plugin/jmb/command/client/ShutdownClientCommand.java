@@ -0,0 +1,18 @@
+package com.ss.jme.plugin.jmb.command.client;
+
+import com.ss.rlib.common.network.annotation.PacketDescription;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * The command to ask jMB to save its state and exit.
+ *
+ * @author JavaSaBr
+ */
+@PacketDescription(id = 12)
+public class ShutdownClientCommand extends ClientCommand {
+
+    @Override
+    public @NotNull Priority getPriority() {
+        return Priority.INTERACTIVE;
+    }
+}
@@ -0,0 +1,85 @@
+package com.ss.jme.plugin.jmb.command.client;
+
+import com.ss.rlib.common.network.annotation.PacketDescription;
+import com.ss.rlib.common.util.array.Array;
+import org.jetbrains.annotations.NotNull;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+
+/**
+ * The command to apply changes of module libraries to the classpath in jMB, the added libraries are appended
+ * to the end of the classpath.
+ * The classpath loaded by {@link InitClasspathClientCommand} has the version 0, if the base version
+ * of this command differs from the version in jMB, jMB should request full synchronization.
+ *
+ * @author JavaSaBr
+ */
+@PacketDescription(id = 6)
+public class UpdateClasspathClientCommand extends ClientCommand {
+
+    /**
+     * The version of the classpath which these changes are based on.
+     */
+    private final int baseVersion;
+
+    /**
+     * The version of the classpath after applying these changes.
+     */
+    private final int version;
+
+    /**
+     * The added libraries.
+     */
+    @NotNull
+    private final Array<Path> added;
+
+    /**
+     * The removed libraries.
+     */
+    @NotNull
+    private final Array<Path> removed;
+
+    public UpdateClasspathClientCommand(
+            int baseVersion,
+            int version,
+            @NotNull Array<Path> added,
+            @NotNull Array<Path> removed
+    ) {
+        this.baseVersion = baseVersion;
+        this.version = version;
+        this.added = added;
+        this.removed = removed;
+    }
+
+    /**
+     * Gets the version of the classpath which these changes are based on.
+     *
+     * @return the base version.
+     */
+    public int getBaseVersion() {
+        return baseVersion;
+    }
+
+    /**
+     * Gets the version of the classpath after applying these changes.
+     *
+     * @return the version.
+     */
+    public int getVersion() {
+        return version;
+    }
+
+    @Override
+    public @NotNull Object getSupersedeKey() {
+        return UpdateClasspathClientCommand.class;
+    }
+
+    @Override
+    protected void writeData(@NotNull ByteBuffer buffer) {
+        writeInt(buffer, baseVersion);
+        writeInt(buffer, version);
+        writePaths(buffer, added);
+        writePaths(buffer, removed);
+    }
+}
@@ -0,0 +1,43 @@
+package com.ss.jme.plugin.jmb.command.server;
+
+import com.ss.jme.plugin.jmb.JmbInstance;
+import com.ss.rlib.common.network.annotation.PacketDescription;
+import org.jetbrains.annotations.NotNull;
+
+import java.nio.ByteBuffer;
+
+/**
+ * The command from jMB to acknowledge processing a client command.
+ *
+ * @author JavaSaBr
+ */
+@PacketDescription(id = 3)
+public class AckServerCommand extends ServerCommand {
+
+    /**
+     * The request id of the processed command.
+     */
+    private long requestId;
+
+    /**
+     * The status of processing.
+     */
+    private int status;
+
+    /**
+     * The time in ms which jMB spent to process the command.
+     */
+    private long processingTime;
+
+    @Override
+    protected void readCommand(@NotNull ByteBuffer buffer) {
+        requestId = readLong(buffer);
+        status = readInt(buffer);
+        processingTime = readLong(buffer);
+    }
+
+    @Override
+    public void handle(@NotNull JmbInstance instance) {
+        instance.onAcknowledged(requestId, status, processingTime);
+    }
+}
@@ -0,0 +1,37 @@
+package com.ss.jme.plugin.jmb.command.server;
+
+import com.ss.jme.plugin.jmb.JmbInstance;
+import com.ss.rlib.common.network.annotation.PacketDescription;
+import org.jetbrains.annotations.NotNull;
+
+import java.nio.ByteBuffer;
+
+/**
+ * The command from jMB which is sent right after connecting to offer its protocol version and capabilities.
+ *
+ * @author JavaSaBr
+ */
+@PacketDescription(id = 4)
+public class HandshakeServerCommand extends ServerCommand {
+
+    /**
+     * The version of the protocol of jMB.
+     */
+    private int apiVersion;
+
+    /**
+     * The capabilities which jMB supports.
+     */
+    private int capabilities;
+
+    @Override
+    protected void readCommand(@NotNull ByteBuffer buffer) {
+        apiVersion = readInt(buffer);
+        capabilities = readInt(buffer);
+    }
+
+    @Override
+    public void handle(@NotNull JmbInstance instance) {
+        instance.onHandshake(apiVersion, capabilities);
+    }
+}
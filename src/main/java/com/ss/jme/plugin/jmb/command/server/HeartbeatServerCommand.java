@@ -0,0 +1,31 @@
+package com.ss.jme.plugin.jmb.command.server;
+
+import com.ss.jme.plugin.jmb.JmbInstance;
+import com.ss.rlib.common.network.annotation.PacketDescription;
+import org.jetbrains.annotations.NotNull;
+
+import java.nio.ByteBuffer;
+
+/**
+ * The command from jMB to answer a heartbeat.
+ *
+ * @author JavaSaBr
+ */
+@PacketDescription(id = 5)
+public class HeartbeatServerCommand extends ServerCommand {
+
+    /**
+     * The sequence number of the answered heartbeat.
+     */
+    private long sequence;
+
+    @Override
+    protected void readCommand(@NotNull ByteBuffer buffer) {
+        sequence = readLong(buffer);
+    }
+
+    @Override
+    public void handle(@NotNull JmbInstance instance) {
+        instance.onHeartbeat(sequence);
+    }
+}
@@ -0,0 +1,32 @@
+package com.ss.jme.plugin.jmb.command.server;
+
+import com.ss.jme.plugin.jmb.JmbInstance;
+import com.ss.rlib.common.network.annotation.PacketDescription;
+import org.jetbrains.annotations.NotNull;
+
+import java.nio.ByteBuffer;
+
+/**
+ * The command from jMB to request full synchronization of the active module
+ * because jMB detected a missed update.
+ *
+ * @author JavaSaBr
+ */
+@PacketDescription(id = 2)
+public class ResyncServerCommand extends ServerCommand {
+
+    /**
+     * The last build sequence number which was applied by jMB.
+     */
+    private int lastSequence;
+
+    @Override
+    protected void readCommand(@NotNull ByteBuffer buffer) {
+        lastSequence = readInt(buffer);
+    }
+
+    @Override
+    public void handle(@NotNull JmbInstance instance) {
+        instance.resyncActiveSession(lastSequence);
+    }
+}
@@ -1,6 +1,12 @@
 package com.ss.jme.plugin.jmb.command.server;
 
+import com.ss.jme.plugin.jmb.JmbInstance;
+import com.ss.jme.plugin.jmb.JmbService;
+import com.ss.rlib.common.network.ConnectionOwner;
 import com.ss.rlib.common.network.packet.impl.AbstractReadablePacket;
+import org.jetbrains.annotations.NotNull;
+
+import java.nio.ByteBuffer;
 
 /**
  * The base implementation of a server command.
@@ -8,4 +14,26 @@ import com.ss.rlib.common.network.packet.impl.AbstractReadablePacket;
  * @author JavaSaBr
  */
 public abstract class ServerCommand extends AbstractReadablePacket {
+
+    @Override
+    protected void readImpl(@NotNull ConnectionOwner owner, @NotNull ByteBuffer buffer) {
+        readCommand(buffer);
+        JmbService.getInstance().onServerCommand(this);
+    }
+
+    /**
+     * Reads data of this command.
+     *
+     * @param buffer the buffer with data.
+     */
+    protected void readCommand(@NotNull ByteBuffer buffer) {
+    }
+
+    /**
+     * Handles this command by the instance of jMB.
+     *
+     * @param instance the instance of jMB.
+     */
+    public void handle(@NotNull JmbInstance instance) {
+    }
 }
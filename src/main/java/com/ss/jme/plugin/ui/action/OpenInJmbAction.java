@@ -5,19 +5,24 @@ import com.intellij.openapi.actionSystem.AnActionEvent;
 import com.intellij.openapi.actionSystem.PlatformDataKeys;
 import com.intellij.openapi.actionSystem.Presentation;
 import com.intellij.openapi.module.Module;
-import com.intellij.openapi.module.ModuleUtil;
 import com.intellij.openapi.project.Project;
+import com.intellij.openapi.roots.ProjectFileIndex;
 import com.intellij.openapi.vfs.VirtualFile;
 import com.ss.jme.plugin.JmeModuleComponent;
 import com.ss.jme.plugin.jmb.command.client.OpenFileClientCommand;
+import com.ss.jme.plugin.jmb.command.client.OpenFilesClientCommand;
+import com.ss.rlib.common.util.array.Array;
+import com.ss.rlib.common.util.array.ArrayFactory;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 /**
- * The action to open a file in jMB.
+ * The action to open selected files in jMB, files of the same module are opened by one command.
  *
  * @author JavaSaBr
  */
@@ -26,49 +31,77 @@ public class OpenInJmbAction extends AnAction {
     @Override
     public void actionPerformed(@NotNull AnActionEvent event) {
 
-        VirtualFile file = event.getData(PlatformDataKeys.VIRTUAL_FILE);
+        VirtualFile[] files = getFiles(event);
         Project project = event.getProject();
-        if (file == null || project == null) {
+        if (files.length == 0 || project == null) {
             return;
         }
 
-        Path assetFolder = getAssetFolder(file, project);
-        if (assetFolder == null) {
-            return;
+        Map<JmeModuleComponent, Array<Path>> filesByModule = new LinkedHashMap<>();
+
+        for (VirtualFile file : files) {
+
+            JmeModuleComponent moduleComponent = findModuleComponent(file, project);
+            if (moduleComponent == null) {
+                continue;
+            }
+
+            filesByModule.computeIfAbsent(moduleComponent, key -> ArrayFactory.newArray(Path.class))
+                    .add(Paths.get(file.getPath()));
         }
 
-        Module module = ModuleUtil.findModuleForFile(file, project);
-        if (module == null) {
-            return;
+        filesByModule.forEach((moduleComponent, paths) -> {
+
+            Path assetFolder = moduleComponent.getAssetFolder();
+            if (assetFolder == null) {
+                return;
+            }
+
+            if (paths.size() == 1) {
+                moduleComponent.sendCommand(new OpenFileClientCommand(assetFolder, paths.get(0)));
+            } else {
+                moduleComponent.sendCommand(new OpenFilesClientCommand(assetFolder, paths));
+            }
+        });
+    }
+
+    /**
+     * Gets the selected files.
+     *
+     * @param event the action event.
+     * @return the selected files.
+     */
+    private @NotNull VirtualFile[] getFiles(@NotNull AnActionEvent event) {
+
+        VirtualFile[] files = event.getData(PlatformDataKeys.VIRTUAL_FILE_ARRAY);
+        if (files != null && files.length > 0) {
+            return files;
         }
 
-        final JmeModuleComponent moduleComponent = module.getComponent(JmeModuleComponent.class);
-        moduleComponent.sendCommand(new OpenFileClientCommand(assetFolder, Paths.get(file.getPath())));
+        VirtualFile file = event.getData(PlatformDataKeys.VIRTUAL_FILE);
+        return file == null ? VirtualFile.EMPTY_ARRAY : new VirtualFile[] {file};
     }
 
     /**
-     * Gets an asset folder of the filer.
+     * Finds the component of the module which asset folder contains the file.
      *
      * @param file    the file.
      * @param project the project.
-     * @return the asset folder or null.
+     * @return the module component or null if the file isn't in an asset folder.
      */
-    private @Nullable Path getAssetFolder(@NotNull VirtualFile file, @NotNull Project project) {
+    private @Nullable JmeModuleComponent findModuleComponent(@NotNull VirtualFile file, @NotNull Project project) {
 
-        Module module = ModuleUtil.findModuleForFile(file, project);
+        Module module = ProjectFileIndex.getInstance(project).getModuleForFile(file);
         if (module == null) {
             return null;
         }
 
         JmeModuleComponent moduleComponent = module.getComponent(JmeModuleComponent.class);
-        Path assetFolder = moduleComponent.getAssetFolder();
-        Path fileAssetFolder = moduleComponent.getAssetFolder(file);
-
-        if (assetFolder == null || !assetFolder.equals(fileAssetFolder)) {
+        if (moduleComponent == null || !moduleComponent.isInAssetFolder(file)) {
             return null;
         }
 
-        return assetFolder;
+        return moduleComponent;
     }
 
     @Override
@@ -76,13 +109,20 @@ public class OpenInJmbAction extends AnAction {
 
         Presentation presentation = event.getPresentation();
 
-        VirtualFile file = event.getData(PlatformDataKeys.VIRTUAL_FILE);
+        VirtualFile[] files = getFiles(event);
         Project project = event.getProject();
-        if (file == null || project == null) {
+        if (files.length == 0 || project == null) {
             presentation.setEnabledAndVisible(false);
             return;
         }
 
-        presentation.setEnabledAndVisible(getAssetFolder(file, project) != null);
+        for (VirtualFile file : files) {
+            if (findModuleComponent(file, project) != null) {
+                presentation.setEnabledAndVisible(true);
+                return;
+            }
+        }
+
+        presentation.setEnabledAndVisible(false);
     }
 }
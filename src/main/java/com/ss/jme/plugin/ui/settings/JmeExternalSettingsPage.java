@@ -3,13 +3,22 @@ package com.ss.jme.plugin.ui.settings;
 import com.intellij.openapi.fileChooser.FileChooserDescriptor;
 import com.intellij.openapi.fileChooser.FileChooserDescriptorFactory;
 import com.intellij.openapi.options.Configurable;
-import com.intellij.openapi.ui.Messages;
+import com.intellij.openapi.options.ConfigurationException;
+import com.intellij.openapi.progress.ProcessCanceledException;
+import com.intellij.openapi.progress.ProgressManager;
+import com.intellij.openapi.ui.ComboBox;
 import com.intellij.openapi.ui.TextFieldWithBrowseButton;
 import com.intellij.openapi.util.Comparing;
+import com.intellij.openapi.util.ThrowableComputable;
 import com.intellij.openapi.util.io.FileUtil;
+import com.intellij.ui.JBIntSpinner;
+import com.intellij.ui.RawCommandLineEditor;
+import com.intellij.ui.components.JBCheckBox;
 import com.intellij.ui.components.JBLabel;
 import com.intellij.ui.components.JBPanel;
 import com.intellij.util.ui.JBUI;
+import com.ss.jme.plugin.JmbLaunchProfile;
+import com.ss.jme.plugin.JmbLaunchProfile.GarbageCollector;
 import com.ss.jme.plugin.JmeMessagesBundle;
 import com.ss.jme.plugin.JmePluginComponent;
 import com.ss.jme.plugin.JmePluginState;
@@ -66,8 +75,13 @@ public class JmeExternalSettingsPage implements Configurable, Configurable.NoScr
     }
 
     @Override
-    public void apply() {
-        getSettingsPanel().ifPresent(JmeConfigurablePanel::apply);
+    public void apply() throws ConfigurationException {
+
+        JmeConfigurablePanel panel = settingsPanel;
+
+        if (panel != null) {
+            panel.apply();
+        }
     }
 
     @Override
@@ -110,41 +124,158 @@ public class JmeExternalSettingsPage implements Configurable, Configurable.NoScr
         @NotNull
         private final TextFieldWithBrowseButton pathField;
 
+        @NotNull
+        private final JBCheckBox prewarmCheckBox;
+
+        @NotNull
+        private final JBCheckBox restartOnCrashCheckBox;
+
+        @NotNull
+        private final JBIntSpinner quietWindowSpinner;
+
+        @NotNull
+        private final JBIntSpinner compressionThresholdSpinner;
+
+        @NotNull
+        private final JBIntSpinner heartbeatMissLimitSpinner;
+
+        @NotNull
+        private final JBIntSpinner idleTimeoutSpinner;
+
+        @NotNull
+        private final TextFieldWithBrowseButton javaHomeField;
+
+        @NotNull
+        private final JBIntSpinner maxHeapSpinner;
+
+        @NotNull
+        private final ComboBox<GarbageCollector> garbageCollectorComboBox;
+
+        @NotNull
+        private final RawCommandLineEditor jvmOptionsField;
+
+        @NotNull
+        private final JBCheckBox classDataSharingCheckBox;
+
+        @NotNull
+        private final JBIntSpinner memoryWarningSpinner;
+
+        @NotNull
+        private final JBIntSpinner memoryCeilingSpinner;
+
         @NotNull
         private final JPanel panel;
 
         public JmeConfigurablePanel() {
             this.panel = new JBPanel<>(new BorderLayout());
             this.pathField = new TextFieldWithBrowseButton();
+            this.prewarmCheckBox = new JBCheckBox(JmeMessagesBundle.message("jme.settings.label.prewarmJmb"));
+            this.restartOnCrashCheckBox = new JBCheckBox(
+                    JmeMessagesBundle.message("jme.settings.label.restartJmbOnCrash"));
+            this.quietWindowSpinner = new JBIntSpinner(1000, 0, 60_000, 100);
+            this.compressionThresholdSpinner = new JBIntSpinner(16, 0, 64 * 1024, 1);
+            this.heartbeatMissLimitSpinner = new JBIntSpinner(3, 1, 100, 1);
+            this.idleTimeoutSpinner = new JBIntSpinner(0, 0, 24 * 60, 1);
+            this.javaHomeField = new TextFieldWithBrowseButton();
+            this.maxHeapSpinner = new JBIntSpinner(0, 0, 64 * 1024, 128);
+            this.garbageCollectorComboBox = new ComboBox<>(GarbageCollector.values());
+            this.jvmOptionsField = new RawCommandLineEditor();
+            this.classDataSharingCheckBox = new JBCheckBox(
+                    JmeMessagesBundle.message("jme.settings.label.classDataSharing"));
+            this.memoryWarningSpinner = new JBIntSpinner(0, 0, 256 * 1024, 256);
+            this.memoryCeilingSpinner = new JBIntSpinner(0, 0, 256 * 1024, 256);
+
+            FileChooserDescriptor javaHomeDescriptor = FileChooserDescriptorFactory.createSingleFolderDescriptor();
+            javaHomeField.addBrowseFolderListener(
+                    JmeMessagesBundle.message("jme.settings.javaHome.file.chooser.title"),
+                    JmeMessagesBundle.message("jme.settings.javaHome.file.chooser.description"),
+                    null, javaHomeDescriptor);
 
             FileChooserDescriptor descriptor = createJmbDescriptor();
             pathField.addBrowseFolderListener(descriptor.getTitle(), descriptor.getDescription(), null, descriptor);
 
-            JBLabel label = new JBLabel(JmeMessagesBundle.message("jme.settings.label.pathToJmb"));
-            label.setHorizontalAlignment(SwingConstants.LEFT);
-
             JPanel wrapper = new JBPanel<>(new GridBagLayout());
 
+            addRow(wrapper, 0, "jme.settings.label.pathToJmb", pathField, true);
+            addRow(wrapper, 1, prewarmCheckBox);
+            addRow(wrapper, 2, "jme.settings.label.syncQuietWindow", quietWindowSpinner, false);
+            addRow(wrapper, 3, "jme.settings.label.compressionThreshold", compressionThresholdSpinner, false);
+            addRow(wrapper, 4, "jme.settings.label.heartbeatMissLimit", heartbeatMissLimitSpinner, false);
+            addRow(wrapper, 5, "jme.settings.label.jmbIdleTimeout", idleTimeoutSpinner, false);
+            addRow(wrapper, 6, restartOnCrashCheckBox);
+            addRow(wrapper, 7, "jme.settings.label.javaHome", javaHomeField, true);
+            addRow(wrapper, 8, "jme.settings.label.maxHeap", maxHeapSpinner, false);
+            addRow(wrapper, 9, "jme.settings.label.garbageCollector", garbageCollectorComboBox, false);
+            addRow(wrapper, 10, "jme.settings.label.jvmOptions", jvmOptionsField, true);
+            addRow(wrapper, 11, classDataSharingCheckBox);
+            addRow(wrapper, 12, "jme.settings.label.memoryWarning", memoryWarningSpinner, false);
+            addRow(wrapper, 13, "jme.settings.label.memoryCeiling", memoryCeilingSpinner, false);
+
+            panel.add(wrapper, BorderLayout.PAGE_START);
+        }
+
+        /**
+         * Adds a row with the label and the component to the panel.
+         *
+         * @param wrapper   the panel.
+         * @param row       the index of the row.
+         * @param key       the message key of the label.
+         * @param component the component.
+         * @param fill      true if the component should fill the rest of the row.
+         */
+        private static void addRow(
+                @NotNull JPanel wrapper,
+                int row,
+                @NotNull String key,
+                @NotNull JComponent component,
+                boolean fill
+        ) {
+
+            JBLabel label = new JBLabel(JmeMessagesBundle.message(key));
+            label.setHorizontalAlignment(SwingConstants.LEFT);
+
             GridBagConstraints constraints = new GridBagConstraints();
             constraints.fill = GridBagConstraints.HORIZONTAL;
             constraints.anchor = GridBagConstraints.LINE_START;
             constraints.insets = JBUI.insets(5, 5, 0, 5);
             constraints.gridx = 0;
-            constraints.gridy = 0;
+            constraints.gridy = row;
 
             wrapper.add(label, constraints);
 
             constraints = new GridBagConstraints();
-            constraints.fill = GridBagConstraints.HORIZONTAL;
             constraints.anchor = GridBagConstraints.LINE_START;
             constraints.insets = JBUI.insets(5, 0, 0, 5);
             constraints.gridx = 1;
-            constraints.gridy = 0;
-            constraints.weightx = 0.5;
-            constraints.gridwidth = 2;
+            constraints.gridy = row;
 
-            wrapper.add(pathField, constraints);
-            panel.add(wrapper, BorderLayout.PAGE_START);
+            if (fill) {
+                constraints.fill = GridBagConstraints.HORIZONTAL;
+                constraints.weightx = 0.5;
+                constraints.gridwidth = 2;
+            }
+
+            wrapper.add(component, constraints);
+        }
+
+        /**
+         * Adds a row with the check box which takes the whole row to the panel.
+         *
+         * @param wrapper  the panel.
+         * @param row      the index of the row.
+         * @param checkBox the check box.
+         */
+        private static void addRow(@NotNull JPanel wrapper, int row, @NotNull JBCheckBox checkBox) {
+
+            GridBagConstraints constraints = new GridBagConstraints();
+            constraints.fill = GridBagConstraints.HORIZONTAL;
+            constraints.anchor = GridBagConstraints.LINE_START;
+            constraints.insets = JBUI.insets(5, 5, 0, 5);
+            constraints.gridx = 0;
+            constraints.gridy = row;
+            constraints.gridwidth = 3;
+
+            wrapper.add(checkBox, constraints);
         }
 
         /**
@@ -152,9 +283,24 @@ public class JmeExternalSettingsPage implements Configurable, Configurable.NoScr
          */
         private void reset() {
 
-            String jmbPath = JmePluginComponent.getInstance()
-                    .getState()
-                    .getJmbPath();
+            JmePluginState state = JmePluginComponent.getInstance().getState();
+            String jmbPath = state.getJmbPath();
+
+            prewarmCheckBox.setSelected(state.isPrewarmJmb());
+            restartOnCrashCheckBox.setSelected(state.isRestartJmbOnCrash());
+            quietWindowSpinner.setNumber(state.getSyncQuietWindow());
+            compressionThresholdSpinner.setNumber(state.getCompressionThreshold());
+            heartbeatMissLimitSpinner.setNumber(state.getHeartbeatMissLimit());
+            idleTimeoutSpinner.setNumber(state.getJmbIdleTimeout());
+            memoryWarningSpinner.setNumber(state.getJmbMemoryWarning());
+            memoryCeilingSpinner.setNumber(state.getJmbMemoryCeiling());
+
+            JmbLaunchProfile profile = state.getLaunchProfile();
+            javaHomeField.setText(FileUtil.toSystemDependentName(profile.getJavaHome()));
+            maxHeapSpinner.setNumber(profile.getMaxHeap());
+            garbageCollectorComboBox.setSelectedItem(profile.getGarbageCollector());
+            jvmOptionsField.setText(profile.getJvmOptions());
+            classDataSharingCheckBox.setSelected(profile.isClassDataSharing());
 
             if (StringUtils.isNotEmpty(jmbPath)) {
                 pathField.setText(FileUtil.toSystemDependentName(jmbPath));
@@ -164,34 +310,68 @@ public class JmeExternalSettingsPage implements Configurable, Configurable.NoScr
         }
 
         /**
-         * Applies settings.
+         * Applies settings, nothing is saved if the selected jMB can't be used.
+         *
+         * @throws ConfigurationException if the selected jMB can't be used or checking it was cancelled.
          */
-        private void apply() {
-
-            JmePluginComponent component = JmePluginComponent.getInstance();
-            JmePluginState state = component.getState();
+        private void apply() throws ConfigurationException {
 
             String jmbPath = FileUtil.toSystemIndependentName(pathField.getText().trim());
 
-            if (StringUtils.isEmpty(jmbPath)) {
-                state.setJmbPath("");
-                return;
+            if (StringUtils.isNotEmpty(jmbPath)) {
+                checkJmb(Paths.get(jmbPath));
             }
 
-            Path path = Paths.get(jmbPath);
+            JmePluginComponent component = JmePluginComponent.getInstance();
+            JmePluginState state = component.getState();
+            state.setJmbPath(jmbPath);
+            state.setPrewarmJmb(prewarmCheckBox.isSelected());
+            state.setRestartJmbOnCrash(restartOnCrashCheckBox.isSelected());
+            state.setSyncQuietWindow(quietWindowSpinner.getNumber());
+            state.setCompressionThreshold(compressionThresholdSpinner.getNumber());
+            state.setHeartbeatMissLimit(heartbeatMissLimitSpinner.getNumber());
+            state.setJmbIdleTimeout(idleTimeoutSpinner.getNumber());
+            state.setJmbMemoryWarning(memoryWarningSpinner.getNumber());
+            state.setJmbMemoryCeiling(memoryCeilingSpinner.getNumber());
+
+            JmbLaunchProfile profile = state.getLaunchProfile();
+            profile.setJavaHome(FileUtil.toSystemIndependentName(javaHomeField.getText().trim()));
+            profile.setMaxHeap(maxHeapSpinner.getNumber());
+            profile.setGarbageCollector((GarbageCollector) garbageCollectorComboBox.getSelectedItem());
+            profile.setJvmOptions(jvmOptionsField.getText().trim());
+            profile.setClassDataSharing(classDataSharingCheckBox.isSelected());
+        }
+
+        /**
+         * Checks the selected jMB before saving settings.
+         *
+         * @param path the path to jMB.
+         * @throws ConfigurationException if we can't work with this jMB or checking it was cancelled.
+         */
+        private void checkJmb(@NotNull Path path) throws ConfigurationException {
+
             if (!Files.exists(path)) {
                 String errorMessage = JmeMessagesBundle.message("jme.settings.pathToJmb.fileNotExists.message");
                 String resultMessage = errorMessage.replace("%path%", path.toString());
                 String title = JmeMessagesBundle.message("jme.settings.pathToJmb.fileNotExists.title");
-                Messages.showWarningDialog(resultMessage, title);
-                return;
+                throw new ConfigurationException(resultMessage, title);
             }
 
-            if (!JmePluginUtils.checkJmb(path)) {
-                return;
+            ThrowableComputable<Boolean, RuntimeException> check = () -> JmePluginUtils.checkJmb(path);
+
+            boolean checked;
+            try {
+                checked = ProgressManager.getInstance().runProcessWithProgressSynchronously(check,
+                        JmeMessagesBundle.message("jme.settings.pathToJmb.checking.title"), true, null);
+            } catch (ProcessCanceledException e) {
+                throw new ConfigurationException(
+                        JmeMessagesBundle.message("jme.settings.pathToJmb.checkCancelled.message"));
             }
 
-            state.setJmbPath(jmbPath);
+            if (!checked) {
+                throw new ConfigurationException(
+                        JmeMessagesBundle.message("jme.settings.pathToJmb.notSupported.message", path.toString()));
+            }
         }
 
         /**
@@ -201,11 +381,25 @@ public class JmeExternalSettingsPage implements Configurable, Configurable.NoScr
          */
         private boolean isModified() {
 
-            String jmbPath = JmePluginComponent.getInstance()
-                    .getState()
-                    .getJmbPath();
-
-            return !Comparing.strEqual(FileUtil.toSystemIndependentName(pathField.getText().trim()), jmbPath.trim());
+            JmePluginState state = JmePluginComponent.getInstance().getState();
+            JmbLaunchProfile profile = state.getLaunchProfile();
+            String jmbPath = state.getJmbPath();
+
+            return !Comparing.strEqual(FileUtil.toSystemIndependentName(pathField.getText().trim()), jmbPath.trim()) ||
+                    prewarmCheckBox.isSelected() != state.isPrewarmJmb() ||
+                    restartOnCrashCheckBox.isSelected() != state.isRestartJmbOnCrash() ||
+                    quietWindowSpinner.getNumber() != state.getSyncQuietWindow() ||
+                    compressionThresholdSpinner.getNumber() != state.getCompressionThreshold() ||
+                    heartbeatMissLimitSpinner.getNumber() != state.getHeartbeatMissLimit() ||
+                    idleTimeoutSpinner.getNumber() != state.getJmbIdleTimeout() ||
+                    memoryWarningSpinner.getNumber() != state.getJmbMemoryWarning() ||
+                    memoryCeilingSpinner.getNumber() != state.getJmbMemoryCeiling() ||
+                    !Comparing.strEqual(FileUtil.toSystemIndependentName(javaHomeField.getText().trim()),
+                            profile.getJavaHome()) ||
+                    maxHeapSpinner.getNumber() != profile.getMaxHeap() ||
+                    garbageCollectorComboBox.getSelectedItem() != profile.getGarbageCollector() ||
+                    !Comparing.strEqual(jvmOptionsField.getText().trim(), profile.getJvmOptions()) ||
+                    classDataSharingCheckBox.isSelected() != profile.isClassDataSharing();
         }
     }
 }
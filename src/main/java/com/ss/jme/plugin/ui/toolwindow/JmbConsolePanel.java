@@ -0,0 +1,131 @@
+package com.ss.jme.plugin.ui.toolwindow;
+
+import com.intellij.execution.filters.TextConsoleBuilderFactory;
+import com.intellij.execution.ui.ConsoleView;
+import com.intellij.execution.ui.ConsoleViewContentType;
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.ui.ComboBox;
+import com.intellij.openapi.util.Disposer;
+import com.intellij.ui.components.JBLabel;
+import com.intellij.ui.components.JBPanel;
+import com.intellij.util.ui.JBUI;
+import com.intellij.util.ui.update.Activatable;
+import com.intellij.util.ui.update.UiNotifyConnector;
+import com.ss.jme.plugin.JmeMessagesBundle;
+import com.ss.jme.plugin.jmb.JmbConsoleBuffer;
+import com.ss.jme.plugin.jmb.JmbConsoleBuffer.Level;
+import com.ss.jme.plugin.jmb.JmbConsoleBuffer.Line;
+import com.ss.jme.plugin.jmb.JmbService;
+import org.jetbrains.annotations.NotNull;
+
+import javax.swing.*;
+import java.awt.*;
+
+/**
+ * The panel to show the last output lines of the shared instance of jMB filtered by their level.
+ *
+ * @author JavaSaBr
+ */
+public class JmbConsolePanel extends JBPanel<JmbConsolePanel> implements Disposable, Activatable {
+
+    /**
+     * The interval in ms to print new output lines.
+     */
+    private static final int REFRESH_INTERVAL = 500;
+
+    @NotNull
+    private final ConsoleView console;
+
+    @NotNull
+    private final ComboBox<Level> levelComboBox;
+
+    @NotNull
+    private final Timer timer;
+
+    /**
+     * The sequence number of the last printed line.
+     */
+    private long lastSequence;
+
+    JmbConsolePanel(@NotNull Project project) {
+        super(new BorderLayout());
+
+        this.console = TextConsoleBuilderFactory.getInstance()
+                .createBuilder(project)
+                .getConsole();
+        this.levelComboBox = new ComboBox<>(Level.values());
+        this.levelComboBox.setSelectedItem(Level.INFO);
+        this.levelComboBox.addActionListener(event -> reprint());
+        this.timer = new Timer(REFRESH_INTERVAL, event -> printNewLines());
+
+        Disposer.register(this, console);
+
+        JPanel toolbar = new JBPanel<>(new FlowLayout(FlowLayout.LEFT, 0, 0));
+        toolbar.setBorder(JBUI.Borders.empty(2, 5));
+        toolbar.add(new JBLabel(JmeMessagesBundle.message("jmb.toolwindow.label.level")));
+        toolbar.add(Box.createHorizontalStrut(JBUI.scale(5)));
+        toolbar.add(levelComboBox);
+
+        add(toolbar, BorderLayout.PAGE_START);
+        add(console.getComponent(), BorderLayout.CENTER);
+
+        // refresh only while the panel is shown
+        Disposer.register(this, new UiNotifyConnector(this, this));
+    }
+
+    @Override
+    public void showNotify() {
+        printNewLines();
+        timer.start();
+    }
+
+    @Override
+    public void hideNotify() {
+        timer.stop();
+    }
+
+    /**
+     * Prints all kept lines again with the selected level.
+     */
+    private void reprint() {
+        console.clear();
+        lastSequence = 0;
+        printNewLines();
+    }
+
+    /**
+     * Prints the lines which were added after the last printed line.
+     */
+    private void printNewLines() {
+
+        JmbConsoleBuffer buffer = JmbService.getInstance()
+                .getSharedInstance()
+                .getConsole();
+
+        Level minLevel = (Level) levelComboBox.getSelectedItem();
+
+        for (Line line : buffer.getLines(lastSequence)) {
+
+            lastSequence = line.getSequence();
+
+            if (minLevel == null || line.getLevel().compareTo(minLevel) >= 0) {
+                console.print(line.getText() + '\n', getContentType(line.getLevel()));
+            }
+        }
+    }
+
+    private static @NotNull ConsoleViewContentType getContentType(@NotNull Level level) {
+        switch (level) {
+            case ERROR: return ConsoleViewContentType.ERROR_OUTPUT;
+            case WARNING: return ConsoleViewContentType.LOG_WARNING_OUTPUT;
+            case DEBUG: return ConsoleViewContentType.LOG_DEBUG_OUTPUT;
+            default: return ConsoleViewContentType.NORMAL_OUTPUT;
+        }
+    }
+
+    @Override
+    public void dispose() {
+        timer.stop();
+    }
+}
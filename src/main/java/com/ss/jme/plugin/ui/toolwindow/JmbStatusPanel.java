@@ -0,0 +1,246 @@
+package com.ss.jme.plugin.ui.toolwindow;
+
+import com.intellij.openapi.Disposable;
+import com.intellij.openapi.util.Disposer;
+import com.intellij.ui.components.JBLabel;
+import com.intellij.ui.components.JBPanel;
+import com.intellij.ui.components.JBScrollPane;
+import com.intellij.ui.table.JBTable;
+import com.intellij.util.ui.JBUI;
+import com.intellij.util.ui.update.Activatable;
+import com.intellij.util.ui.update.UiNotifyConnector;
+import com.ss.jme.plugin.JmeMessagesBundle;
+import com.ss.jme.plugin.jmb.JmbCapabilities;
+import com.ss.jme.plugin.jmb.JmbCommandStats;
+import com.ss.jme.plugin.jmb.JmbHealthMonitor;
+import com.ss.jme.plugin.jmb.JmbInstance;
+import com.ss.jme.plugin.jmb.JmbResourceSampler;
+import com.ss.jme.plugin.jmb.JmbService;
+import org.jetbrains.annotations.NotNull;
+
+import javax.swing.*;
+import javax.swing.table.AbstractTableModel;
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The panel to show state, health, round-trip time, used resources and command statistics
+ * of the shared instance of jMB.
+ *
+ * @author JavaSaBr
+ */
+public class JmbStatusPanel extends JBPanel<JmbStatusPanel> implements Disposable, Activatable {
+
+    /**
+     * The interval in ms to refresh the shown state.
+     */
+    private static final int REFRESH_INTERVAL = 1000;
+
+    @NotNull
+    private final JBLabel stateLabel;
+
+    @NotNull
+    private final JBLabel startupTimeLabel;
+
+    @NotNull
+    private final JBLabel healthLabel;
+
+    @NotNull
+    private final JBLabel roundTripTimeLabel;
+
+    @NotNull
+    private final JBLabel missedBeatsLabel;
+
+    @NotNull
+    private final JBLabel capabilitiesLabel;
+
+    @NotNull
+    private final JBLabel memoryLabel;
+
+    @NotNull
+    private final JBLabel threadsLabel;
+
+    @NotNull
+    private final JBLabel cpuLabel;
+
+    @NotNull
+    private final StatsTableModel statsModel;
+
+    @NotNull
+    private final Timer timer;
+
+    JmbStatusPanel() {
+        super(new BorderLayout());
+
+        this.stateLabel = new JBLabel();
+        this.startupTimeLabel = new JBLabel();
+        this.healthLabel = new JBLabel();
+        this.roundTripTimeLabel = new JBLabel();
+        this.missedBeatsLabel = new JBLabel();
+        this.capabilitiesLabel = new JBLabel();
+        this.memoryLabel = new JBLabel();
+        this.threadsLabel = new JBLabel();
+        this.cpuLabel = new JBLabel();
+        this.statsModel = new StatsTableModel();
+        this.timer = new Timer(REFRESH_INTERVAL, event -> refresh());
+
+        JPanel summary = new JBPanel<>(new GridBagLayout());
+
+        addRow(summary, 0, "jmb.toolwindow.label.state", stateLabel);
+        addRow(summary, 1, "jmb.toolwindow.label.startupTime", startupTimeLabel);
+        addRow(summary, 2, "jmb.toolwindow.label.health", healthLabel);
+        addRow(summary, 3, "jmb.toolwindow.label.roundTripTime", roundTripTimeLabel);
+        addRow(summary, 4, "jmb.toolwindow.label.missedBeats", missedBeatsLabel);
+        addRow(summary, 5, "jmb.toolwindow.label.capabilities", capabilitiesLabel);
+        addRow(summary, 6, "jmb.toolwindow.label.memory", memoryLabel);
+        addRow(summary, 7, "jmb.toolwindow.label.threads", threadsLabel);
+        addRow(summary, 8, "jmb.toolwindow.label.cpu", cpuLabel);
+
+        add(summary, BorderLayout.PAGE_START);
+        add(new JBScrollPane(new JBTable(statsModel)), BorderLayout.CENTER);
+
+        // refresh only while the panel is shown
+        Disposer.register(this, new UiNotifyConnector(this, this));
+    }
+
+    @Override
+    public void showNotify() {
+        refresh();
+        timer.start();
+    }
+
+    @Override
+    public void hideNotify() {
+        timer.stop();
+    }
+
+    /**
+     * Adds a row with the label and the value to the panel.
+     *
+     * @param panel the panel.
+     * @param row   the index of the row.
+     * @param key   the message key of the label.
+     * @param value the value component.
+     */
+    private static void addRow(@NotNull JPanel panel, int row, @NotNull String key, @NotNull JComponent value) {
+
+        GridBagConstraints constraints = new GridBagConstraints();
+        constraints.anchor = GridBagConstraints.LINE_START;
+        constraints.insets = JBUI.insets(5, 5, 0, 5);
+        constraints.gridx = 0;
+        constraints.gridy = row;
+
+        panel.add(new JBLabel(JmeMessagesBundle.message(key)), constraints);
+
+        constraints = new GridBagConstraints();
+        constraints.fill = GridBagConstraints.HORIZONTAL;
+        constraints.anchor = GridBagConstraints.LINE_START;
+        constraints.insets = JBUI.insets(5, 0, 0, 5);
+        constraints.gridx = 1;
+        constraints.gridy = row;
+        constraints.weightx = 1;
+
+        panel.add(value, constraints);
+    }
+
+    /**
+     * Refreshes the shown state of jMB.
+     */
+    private void refresh() {
+
+        JmbInstance instance = JmbService.getInstance().getSharedInstance();
+        JmbHealthMonitor healthMonitor = instance.getHealthMonitor();
+
+        long roundTripTime = healthMonitor.getRoundTripTime();
+        long startupTime = instance.getStartupTime();
+
+        stateLabel.setText(JmeMessagesBundle.message("jmb.toolwindow.state." + instance.getState()));
+        startupTimeLabel.setText(startupTime < 0 ?
+                JmeMessagesBundle.message("jmb.toolwindow.value.unknown") : startupTime + " ms");
+        healthLabel.setText(JmeMessagesBundle.message("jmb.toolwindow.health." + healthMonitor.getHealth()));
+        roundTripTimeLabel.setText(roundTripTime < 0 ?
+                JmeMessagesBundle.message("jmb.toolwindow.value.unknown") : roundTripTime + " ms");
+        missedBeatsLabel.setText(String.valueOf(healthMonitor.getMissedBeats()));
+        capabilitiesLabel.setText(JmbCapabilities.toString(instance.getCapabilities()));
+
+        JmbResourceSampler.Sample sample = instance.getResourceSampler().getSample();
+        String unknown = JmeMessagesBundle.message("jmb.toolwindow.value.unknown");
+
+        if (sample == null) {
+            memoryLabel.setText(unknown);
+            threadsLabel.setText(unknown);
+            cpuLabel.setText(unknown);
+        } else {
+            memoryLabel.setText(sample.getRss() / 1024 + " MB");
+            threadsLabel.setText(String.valueOf(sample.getThreads()));
+            cpuLabel.setText(sample.getCpuTime() / 1000 + " s" + (sample.getCpuUsage() < 0 ?
+                    "" : String.format(" (%.1f%%)", sample.getCpuUsage())));
+        }
+
+        statsModel.update(instance.getCommandStats());
+    }
+
+    @Override
+    public void dispose() {
+        timer.stop();
+    }
+
+    /**
+     * The table model of command statistics.
+     */
+    private static class StatsTableModel extends AbstractTableModel {
+
+        @NotNull
+        private static final String[] COLUMNS = {
+                "jmb.toolwindow.column.command",
+                "jmb.toolwindow.column.count",
+                "jmb.toolwindow.column.bytes",
+                "jmb.toolwindow.column.compressed",
+                "jmb.toolwindow.column.ratio",
+                "jmb.toolwindow.column.compressionTime"
+        };
+
+        @NotNull
+        private List<Map.Entry<String, JmbCommandStats.Counter>> rows = new ArrayList<>();
+
+        private void update(@NotNull JmbCommandStats stats) {
+            rows = new ArrayList<>(stats.getCounters().entrySet());
+            rows.sort(Map.Entry.comparingByKey());
+            fireTableDataChanged();
+        }
+
+        @Override
+        public int getRowCount() {
+            return rows.size();
+        }
+
+        @Override
+        public int getColumnCount() {
+            return COLUMNS.length;
+        }
+
+        @Override
+        public String getColumnName(int column) {
+            return JmeMessagesBundle.message(COLUMNS[column]);
+        }
+
+        @Override
+        public Object getValueAt(int rowIndex, int columnIndex) {
+
+            Map.Entry<String, JmbCommandStats.Counter> row = rows.get(rowIndex);
+            JmbCommandStats.Counter counter = row.getValue();
+
+            switch (columnIndex) {
+                case 0: return row.getKey();
+                case 1: return counter.getCount();
+                case 2: return counter.getBytes();
+                case 3: return counter.getCompressedCount();
+                case 4: return String.format("%.2f", counter.getCompressionRatio());
+                case 5: return counter.getCompressionTime();
+                default: return null;
+            }
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.ss.jme.plugin.ui.toolwindow;
+
+import com.intellij.openapi.project.DumbAware;
+import com.intellij.openapi.project.Project;
+import com.intellij.openapi.wm.ToolWindow;
+import com.intellij.openapi.wm.ToolWindowFactory;
+import com.intellij.ui.content.Content;
+import com.intellij.ui.content.ContentFactory;
+import com.ss.jme.plugin.JmeMessagesBundle;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * The factory of the tool window to show the state and the output of the shared instance of jMB.
+ *
+ * @author JavaSaBr
+ */
+public class JmbToolWindowFactory implements ToolWindowFactory, DumbAware {
+
+    @Override
+    public void createToolWindowContent(@NotNull Project project, @NotNull ToolWindow toolWindow) {
+
+        JmbStatusPanel statusPanel = new JmbStatusPanel();
+
+        Content content = ContentFactory.SERVICE.getInstance()
+                .createContent(statusPanel, JmeMessagesBundle.message("jmb.toolwindow.tab.status"), false);
+        content.setDisposer(statusPanel);
+
+        JmbConsolePanel consolePanel = new JmbConsolePanel(project);
+
+        Content consoleContent = ContentFactory.SERVICE.getInstance()
+                .createContent(consolePanel, JmeMessagesBundle.message("jmb.toolwindow.tab.console"), false);
+        consoleContent.setDisposer(consolePanel);
+
+        toolWindow.getContentManager().addContent(content);
+        toolWindow.getContentManager().addContent(consoleContent);
+    }
+}
@@ -7,5 +7,89 @@ package com.ss.jme.plugin.util;
  */
 public interface JmeConstants {
 
+    /**
+     * The version of the protocol between IDEA and jMB, optional features of the protocol
+     * are negotiated by capabilities in the handshake and don't change the version.
+     */
     int JMB_API_VERSION = 1;
+
+    /**
+     * The max time in ms to wait for a launched jMB to accept a connection.
+     */
+    int JMB_CONNECT_TIMEOUT = 60_000;
+
+    /**
+     * The first delay in ms between attempts to connect to a launched jMB.
+     */
+    int JMB_CONNECT_MIN_DELAY = 50;
+
+    /**
+     * The max delay in ms between attempts to connect to a launched jMB.
+     */
+    int JMB_CONNECT_MAX_DELAY = 1000;
+
+    /**
+     * The interval in ms between heartbeats to jMB.
+     */
+    int JMB_HEARTBEAT_INTERVAL = 5000;
+
+    /**
+     * The max count of automatic restarts of jMB in {@link #JMB_RESTART_WINDOW}.
+     */
+    int JMB_MAX_RESTARTS = 3;
+
+    /**
+     * The time window in ms to count automatic restarts of jMB.
+     */
+    int JMB_RESTART_WINDOW = 5 * 60_000;
+
+    /**
+     * The max count of last opened files to reopen after restarting jMB.
+     */
+    int JMB_MAX_REOPENED_FILES = 32;
+
+    /**
+     * The max time in ms to wait for jMB to exit gracefully before killing it.
+     */
+    int JMB_SHUTDOWN_TIMEOUT = 5000;
+
+    /**
+     * The interval in ms between checks of idle jMB.
+     */
+    int JMB_IDLE_CHECK_INTERVAL = 60_000;
+
+    /**
+     * The interval in ms between checks of finished jMB processes.
+     */
+    int JMB_REAPER_INTERVAL = 500;
+
+    /**
+     * The interval in ms between samples of resources of jMB.
+     */
+    int JMB_RESOURCE_SAMPLE_INTERVAL = 5000;
+
+    /**
+     * The max count of kept output lines of jMB.
+     */
+    int JMB_CONSOLE_CAPACITY = 5000;
+
+    /**
+     * The max length of a kept output line of jMB.
+     */
+    int JMB_CONSOLE_MAX_LINE_LENGTH = 2000;
+
+    /**
+     * The marker which jMB prints to its output when it starts accepting connections.
+     */
+    String JMB_READY_MARKER = "[jMB] API server is ready";
+
+    /**
+     * The max time in ms to wait for an acknowledgement of a command before resending it.
+     */
+    int JMB_ACK_TIMEOUT = 30_000;
+
+    /**
+     * The max count of resending a command without an acknowledgement.
+     */
+    int JMB_ACK_MAX_RETRIES = 1;
 }
@@ -1,7 +1,11 @@
 package com.ss.jme.plugin.util;
 
 import com.intellij.openapi.diagnostic.Logger;
+import com.intellij.openapi.progress.ProcessCanceledException;
+import com.intellij.openapi.progress.ProgressIndicator;
+import com.intellij.openapi.progress.ProgressManager;
 import com.intellij.openapi.ui.Messages;
+import com.intellij.openapi.util.text.StringUtil;
 import com.intellij.openapi.vfs.VirtualFile;
 import com.ss.jme.plugin.JmeMessagesBundle;
 import com.ss.jme.plugin.JmePluginComponent;
@@ -14,9 +18,12 @@ import org.jetbrains.annotations.Nullable;
 
 import javax.swing.*;
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.Arrays;
 import java.util.concurrent.TimeUnit;
 
@@ -29,6 +36,11 @@ public class JmePluginUtils {
 
     private static final Logger LOG = Logger.getInstance("#com.ss.jme.plugin.util.JmePluginUtils");
 
+    /**
+     * The max time in ms to wait for a result of checking jMB.
+     */
+    private static final long CHECK_TIMEOUT = 2000;
+
     /**
      * Gets or creates folders by the names start from the parent folder.
      *
@@ -105,12 +117,163 @@ public class JmePluginUtils {
     }
 
     /**
-     * Check jMB by the path.
+     * Shows a warning dialog or only logs the warning if it should be silent.
+     *
+     * @param silent  true if the warning should be only logged.
+     * @param message the message.
+     * @param title   the title.
+     */
+    public static void showWarning(boolean silent, @NotNull String message, @NotNull String title) {
+
+        if (silent) {
+            LOG.warn(title + ": " + message);
+            return;
+        }
+
+        SwingUtilities.invokeLater(() -> Messages.showWarningDialog(message, title));
+    }
+
+    /**
+     * Check jMB by the path. A result of a successful check is cached by the fingerprint of jMB,
+     * so jMB is launched to check it only when it was changed.
      *
      * @param path the path to jMB.
      * @return true if we can work with this jMB.
      */
     public static boolean checkJmb(@NotNull Path path) {
+        return checkJmb(path, false);
+    }
+
+    /**
+     * Check jMB by the path. A result of a successful check is cached by the fingerprint of jMB,
+     * so jMB is launched to check it only when it was changed.
+     *
+     * @param path   the path to jMB.
+     * @param silent true if problems should be only logged without showing dialogs.
+     * @return true if we can work with this jMB.
+     */
+    public static boolean checkJmb(@NotNull Path path, boolean silent) {
+
+        JmePluginState state = JmePluginComponent.getInstance().getState();
+        ProgressIndicator indicator = ProgressManager.getInstance().getProgressIndicator();
+
+        long size;
+        long modified;
+        try {
+            size = Files.size(path);
+            modified = Files.getLastModifiedTime(path).toMillis();
+        } catch (IOException e) {
+            LOG.warn(e);
+            return probeJmb(path, silent, indicator);
+        }
+
+        String pathString = path.toString();
+
+        boolean sameFile = pathString.equals(state.getCheckedJmbPath()) && size == state.getCheckedJmbSize();
+
+        if (sameFile && state.getCheckedJmbApiVersion() == JmeConstants.JMB_API_VERSION) {
+
+            if (modified == state.getCheckedJmbModified()) {
+                LOG.debug("jMB by the path ", path, " was already checked.");
+                return true;
+            }
+
+            // the file was touched, so compare its content with the checked one
+            String hash = calculateHash(path, indicator);
+            if (hash != null && hash.equals(state.getCheckedJmbHash())) {
+                LOG.debug("jMB by the path ", path, " has the same content as the checked one.");
+                state.setCheckedJmb(pathString, size, modified, hash, JmeConstants.JMB_API_VERSION);
+                return true;
+            }
+        }
+
+        if (!probeJmb(path, silent, indicator)) {
+            return false;
+        }
+
+        state.setCheckedJmb(pathString, size, modified, calculateHash(path, indicator), JmeConstants.JMB_API_VERSION);
+        return true;
+    }
+
+    /**
+     * Gets the content hash of jMB, the hash of the checked jMB is reused if jMB wasn't changed since checking.
+     *
+     * @param path the path to jMB.
+     * @return the content hash or null if jMB can't be read.
+     */
+    public static @Nullable String getJmbHash(@NotNull Path path) {
+
+        JmePluginState state = JmePluginComponent.getInstance().getState();
+        ProgressIndicator indicator = ProgressManager.getInstance().getProgressIndicator();
+
+        try {
+
+            boolean checked = path.toString().equals(state.getCheckedJmbPath()) &&
+                    Files.size(path) == state.getCheckedJmbSize() &&
+                    Files.getLastModifiedTime(path).toMillis() == state.getCheckedJmbModified();
+
+            if (checked && StringUtils.isNotEmpty(state.getCheckedJmbHash())) {
+                return state.getCheckedJmbHash();
+            }
+
+        } catch (IOException e) {
+            LOG.warn(e);
+            return null;
+        }
+
+        return calculateHash(path, indicator);
+    }
+
+    /**
+     * Calculates the content hash of the file.
+     *
+     * @param path      the path to the file.
+     * @param indicator the progress indicator or null.
+     * @return the content hash or null if the file can't be read.
+     */
+    private static @Nullable String calculateHash(@NotNull Path path, @Nullable ProgressIndicator indicator) {
+
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+
+        byte[] buffer = new byte[8192];
+
+        try (InputStream in = Files.newInputStream(path)) {
+            for (int read = in.read(buffer); read != -1; read = in.read(buffer)) {
+
+                if (indicator != null) {
+                    indicator.checkCanceled();
+                }
+
+                digest.update(buffer, 0, read);
+            }
+        } catch (IOException e) {
+            LOG.warn(e);
+            return null;
+        }
+
+        return StringUtil.toHexString(digest.digest());
+    }
+
+    /**
+     * Launches jMB by the path to check that it supports integration with IDEA.
+     *
+     * @param path      the path to jMB.
+     * @param silent    true if problems should be only logged without showing dialogs.
+     * @param indicator the progress indicator to cancel checking or null.
+     * @return true if we can work with this jMB.
+     */
+    private static boolean probeJmb(
+            @NotNull Path path,
+            boolean silent,
+            @Nullable ProgressIndicator indicator
+    ) {
+
+        LOG.debug("check jMB by the path ", path);
 
         ProcessBuilder builder;
 
@@ -130,39 +293,47 @@ public class JmePluginUtils {
             process = builder.start();
         } catch (IOException e) {
             LOG.warn(e);
-            SwingUtilities.invokeLater(() -> {
-                String errorMessage = JmeMessagesBundle.message("jme.instance.error.cantExecute.message");
-                String resultMessage = errorMessage.replace("%path%", path.toString());
-                String title = JmeMessagesBundle.message("jme.instance.error.cantExecute.title");
-                Messages.showWarningDialog(resultMessage, title);
-            });
+            String errorMessage = JmeMessagesBundle.message("jme.instance.error.cantExecute.message");
+            String resultMessage = errorMessage.replace("%path%", path.toString());
+            String title = JmeMessagesBundle.message("jme.instance.error.cantExecute.title");
+            showWarning(silent, resultMessage, title);
             return false;
         }
 
         boolean finished = false;
         try {
-            finished = process.waitFor(2, TimeUnit.SECONDS);
+
+            long deadline = System.currentTimeMillis() + CHECK_TIMEOUT;
+
+            while (!finished && System.currentTimeMillis() < deadline) {
+
+                if (indicator != null) {
+                    indicator.checkCanceled();
+                }
+
+                finished = process.waitFor(100, TimeUnit.MILLISECONDS);
+            }
+
         } catch (InterruptedException e) {
             LOG.warn(e);
+        } catch (ProcessCanceledException e) {
+            process.destroy();
+            throw e;
         }
 
         if (!finished) {
-            SwingUtilities.invokeLater(() -> {
-                String message = JmeMessagesBundle.message("jme.instance.error.doesNotSupport.messageByTimeout", path.toString());
-                String title = JmeMessagesBundle.message("jme.instance.error.doesNotSupport.title");
-                Messages.showWarningDialog(message, title);
-            });
+            String message = JmeMessagesBundle.message("jme.instance.error.doesNotSupport.messageByTimeout", path.toString());
+            String title = JmeMessagesBundle.message("jme.instance.error.doesNotSupport.title");
+            showWarning(silent, message, title);
             process.destroy();
             return false;
         }
 
         final int code = process.exitValue();
         if (code != 100) {
-            SwingUtilities.invokeLater(() -> {
-                String message = JmeMessagesBundle.message("jme.instance.error.doesNotSupport.message", path.toString());
-                String title = JmeMessagesBundle.message("jme.instance.error.doesNotSupport.title");
-                Messages.showWarningDialog(message, title);
-            });
+            String message = JmeMessagesBundle.message("jme.instance.error.doesNotSupport.message", path.toString());
+            String title = JmeMessagesBundle.message("jme.instance.error.doesNotSupport.title");
+            showWarning(silent, message, title);
             return false;
         }
 